@@ -0,0 +1,205 @@
+package com.example.api;
+
+import io.vertx.core.json.JsonObject;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Concurrency limit adapted to observed latency (additive increase,
+ * multiplicative decrease), used for admission control of HTTP requests and
+ * crud.* event bus requests.
+ *
+ * Each completion updates a short and a long moving average of latency. The
+ * limit grows by 1/limit per completion while it is actually being used, and
+ * shrinks by 10% (at most every 100 ms) when the short average exceeds the
+ * long one by the tolerance, or when a call times out or fails with a 5xx.
+ * Priorities reserve headroom: writes may only fill 90% of the limit and bulk
+ * operations 50%, so reads are the last to be shed. Bulk latencies (long
+ * imports and exports) don't feed the averages.
+ *
+ * Config (shared by all limiters, see {@link #configure}):
+ * - admissionControl: enable limiting (default true)
+ * - admissionInitialLimit: starting limit (default 256)
+ * - admissionMinLimit / admissionMaxLimit: bounds (default 8 / 4096)
+ * - admissionLatencyTolerance: short/long latency ratio treated as overload
+ *   (default 2.0)
+ * - admissionRetryAfterSeconds: Retry-After sent with 503 (default 1)
+ */
+public class AdaptiveLimiter {
+
+    /**
+     * Request classes with the share of the limit each may fill
+     */
+    public enum Priority {
+        READ(1.0), WRITE(0.9), BULK(0.5);
+
+        final double share;
+        final String label = name().toLowerCase(Locale.ROOT);
+
+        Priority(double share) {
+            this.share = share;
+        }
+
+        /**
+         * Priority of a crud.* or resource.* request by its address
+         */
+        public static Priority ofAddress(String address) {
+            return switch (address) {
+                case "crud.get", "crud.list", "crud.stats", "crud.explain",
+                        "resource.lookup", "resource.history" -> READ;
+                case "crud.bulk" -> BULK;
+                default -> WRITE;
+            };
+        }
+    }
+
+    // Optional work may only fill this much of its priority's share
+    private static final double OPTIONAL_SHARE = 0.9;
+
+    // Latencies below this are treated as noise, never as overload
+    private static final double LATENCY_FLOOR_NANOS = 1_000_000;
+    private static final long DECREASE_INTERVAL_NANOS = 100_000_000;
+    private static final double SHORT_WEIGHT = 0.1;
+    private static final double LONG_WEIGHT = 0.005;
+
+    private static final List<AdaptiveLimiter> limiters = new CopyOnWriteArrayList<>();
+
+    private static volatile boolean enabled = true;
+    private static volatile int initialLimit = 256;
+    private static volatile int minLimit = 8;
+    private static volatile int maxLimit = 4096;
+    private static volatile double tolerance = 2.0;
+    private static volatile int retryAfterSeconds = 1;
+
+    final String scope;
+    final String name;
+    private double limit;
+    private int inFlight;
+    private double shortNanos;
+    private double longNanos;
+    private long lastDecrease;
+    private final long[] admitted = new long[Priority.values().length];
+    private final long[] shed = new long[Priority.values().length];
+
+    private AdaptiveLimiter(String scope, String name) {
+        this.scope = scope;
+        this.name = name;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * Apply the admission settings from verticle config; JVM-wide
+     */
+    public static void configure(JsonObject config) {
+        enabled = config.getBoolean("admissionControl", true);
+        minLimit = Math.max(1, config.getInteger("admissionMinLimit", 8));
+        maxLimit = Math.max(minLimit, config.getInteger("admissionMaxLimit", 4096));
+        initialLimit = Math.max(minLimit, Math.min(maxLimit, config.getInteger("admissionInitialLimit", 256)));
+        tolerance = Math.max(1.1, config.getDouble("admissionLatencyTolerance", 2.0));
+        retryAfterSeconds = Math.max(1, config.getInteger("admissionRetryAfterSeconds", 1));
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * A new limiter, listed in the metrics
+     */
+    public static AdaptiveLimiter create(String scope, String name) {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(scope, name);
+        limiters.add(limiter);
+        return limiter;
+    }
+
+    public static List<AdaptiveLimiter> all() {
+        return limiters;
+    }
+
+    public static int retryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * Take a slot, or count the call as shed when its priority's share of the
+     * limit is in use
+     */
+    public synchronized boolean tryAcquire(Priority priority) {
+        if (inFlight >= limit * priority.share) {
+            shed[priority.ordinal()]++;
+            return false;
+        }
+        inFlight++;
+        admitted[priority.ordinal()]++;
+        return true;
+    }
+
+    /**
+     * Take a slot for optional work, such as a hedged backup request, only
+     * while less than 90% of the priority's share is in use, so it never
+     * takes the last slots from primary requests. A refusal isn't counted as
+     * shed.
+     */
+    public synchronized boolean tryAcquireOptional(Priority priority) {
+        if (inFlight >= limit * priority.share * OPTIONAL_SHARE) {
+            return false;
+        }
+        inFlight++;
+        admitted[priority.ordinal()]++;
+        return true;
+    }
+
+    /**
+     * Return a slot with the call's latency and whether it failed in a way
+     * that indicates overload (timeout, 5xx)
+     */
+    public synchronized void release(Priority priority, long nanos, boolean overloaded) {
+        boolean saturated = inFlight >= limit / 2;
+        inFlight--;
+        if (priority != Priority.BULK) {
+            shortNanos = shortNanos == 0 ? nanos : shortNanos + SHORT_WEIGHT * (nanos - shortNanos);
+            longNanos = longNanos == 0 ? nanos : longNanos + LONG_WEIGHT * (nanos - longNanos);
+            overloaded |= shortNanos > LATENCY_FLOOR_NANOS && shortNanos > longNanos * tolerance;
+        }
+        long now = System.nanoTime();
+        if (overloaded) {
+            if (now - lastDecrease >= DECREASE_INTERVAL_NANOS) {
+                lastDecrease = now;
+                limit = Math.max(minLimit, limit * 0.9);
+            }
+        } else if (saturated) {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+    }
+
+    public synchronized JsonObject stats() {
+        JsonObject admittedJson = new JsonObject();
+        JsonObject shedJson = new JsonObject();
+        for (Priority priority : Priority.values()) {
+            admittedJson.put(priority.label, admitted[priority.ordinal()]);
+            shedJson.put(priority.label, shed[priority.ordinal()]);
+        }
+        return new JsonObject()
+                .put("scope", scope)
+                .put("name", name)
+                .put("limit", (int) limit)
+                .put("inFlight", inFlight)
+                .put("shortLatencyMs", shortNanos / 1e6)
+                .put("longLatencyMs", longNanos / 1e6)
+                .put("admitted", admittedJson)
+                .put("shed", shedJson);
+    }
+
+    synchronized long shed(Priority priority) {
+        return shed[priority.ordinal()];
+    }
+
+    synchronized int limit() {
+        return (int) limit;
+    }
+
+    synchronized int inFlight() {
+        return inFlight;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.api;
+
+import io.vertx.core.Handler;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.ext.web.RoutingContext;
+
+/**
+ * Router handler admitting requests through an HTTP verticle instance's
+ * {@link AdaptiveLimiter}. Requests over the limit get 503 with Retry-After
+ * right away instead of queueing behind slow ones. Admin, metrics and
+ * documentation routes are never shed.
+ */
+public final class AdmissionControl {
+
+    private AdmissionControl() {
+    }
+
+    public static Handler<RoutingContext> handler(AdaptiveLimiter limiter) {
+        return ctx -> {
+            String path = ctx.normalizedPath();
+            if (isExempt(path)) {
+                ctx.next();
+                return;
+            }
+            AdaptiveLimiter.Priority priority = priorityOf(ctx.request().method(), path);
+            if (!limiter.tryAcquire(priority)) {
+                RouterUtility.sendOverloaded(ctx, "Server is overloaded, retry later");
+                return;
+            }
+            long started = System.nanoTime();
+            ctx.addEndHandler(ar -> limiter.release(priority, System.nanoTime() - started,
+                    ar.failed() || ctx.response().getStatusCode() >= 500));
+            ctx.next();
+        };
+    }
+
+    private static boolean isExempt(String path) {
+        return path.startsWith("/api/v1/admin/") || path.equals("/metrics") || path.startsWith("/docs")
+                || path.equals("/openapi.yaml") || path.equals("/api/v1/hello");
+    }
+
+    /**
+     * Bulk, import and export are the first to be shed, then single writes
+     */
+    static AdaptiveLimiter.Priority priorityOf(HttpMethod method, String path) {
+        if (path.endsWith(":bulk") || path.endsWith("/import") || path.endsWith("/export")) {
+            return AdaptiveLimiter.Priority.BULK;
+        }
+        return HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method)
+                ? AdaptiveLimiter.Priority.READ
+                : AdaptiveLimiter.Priority.WRITE;
+    }
+}
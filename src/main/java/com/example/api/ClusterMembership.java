@@ -0,0 +1,106 @@
+package com.example.api;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.spi.cluster.ClusterManager;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Current cluster members and the consistent-hash ring that decides which
+ * nodes own a resource.store / resource.lookup id.
+ *
+ * MainApp attaches the cluster manager once the clustered Vert.x is up;
+ * membership is then polled, because the cluster manager's single node
+ * listener belongs to the event bus. Until attached (or when running
+ * unclustered) there are no owners and callers use the shared addresses.
+ */
+public class ClusterMembership {
+
+    private static ClusterMembership instance;
+
+    private volatile String nodeId;
+    private volatile List<String> nodes = List.of();
+    private volatile HashRing ring = new HashRing(List.of(), 0);
+    private volatile int replicas = 2;
+    private int virtualNodes = 128;
+
+    private ClusterMembership() {
+        // Private constructor for singleton pattern
+    }
+
+    /**
+     * Get singleton instance of ClusterMembership
+     */
+    public static ClusterMembership getInstance() {
+        if (instance == null) {
+            synchronized (ClusterMembership.class) {
+                if (instance == null) {
+                    instance = new ClusterMembership();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Start tracking membership.
+     *
+     * Config:
+     * - replicas: owners per id (default 2)
+     * - virtualNodes: ring points per node (default 128)
+     * - membershipPollMs: how often membership is checked (default 2000)
+     */
+    public synchronized void attach(Vertx vertx, ClusterManager clusterManager, JsonObject config) {
+        replicas = Math.max(1, config.getInteger("replicas", 2));
+        virtualNodes = Math.max(1, config.getInteger("virtualNodes", 128));
+        nodeId = clusterManager.getNodeId();
+        refresh(clusterManager);
+        vertx.setPeriodic(config.getLong("membershipPollMs", 2000L), t -> refresh(clusterManager));
+    }
+
+    private void refresh(ClusterManager clusterManager) {
+        List<String> current = new ArrayList<>(clusterManager.getNodes());
+        current.sort(null);
+        if (!current.equals(nodes)) {
+            ring = new HashRing(current, virtualNodes);
+            nodes = List.copyOf(current);
+            CrudClient.getInstance().retainNodes(current);
+            System.out.println("[ClusterMembership] Ring rebuilt with " + current.size() + " node(s)");
+        }
+    }
+
+    /**
+     * This node's id, or null when not attached
+     */
+    public String nodeId() {
+        return nodeId;
+    }
+
+    public List<String> nodes() {
+        return nodes;
+    }
+
+    /**
+     * Owner nodes of the id, primary first; empty when not attached
+     */
+    public List<String> owners(String id) {
+        return ring.owners(id, replicas);
+    }
+
+    /**
+     * Node-specific form of a resource.* address
+     */
+    public static String address(String address, String nodeId) {
+        return address + "." + nodeId;
+    }
+
+    public JsonObject stats() {
+        return new JsonObject()
+                .put("nodeId", nodeId)
+                .put("nodes", new JsonArray(new ArrayList<>(nodes)))
+                .put("replicas", replicas)
+                .put("virtualNodes", virtualNodes);
+    }
+}
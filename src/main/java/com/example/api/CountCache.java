@@ -0,0 +1,137 @@
+package com.example.api;
+
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.CountOptions;
+import io.vertx.ext.mongo.MongoClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Short-lived cache of collection counts keyed by normalized filter.
+ * Writers call {@link #invalidateAll()}; a count that was started before an
+ * invalidation is never stored, so the cache cannot resurrect a stale total.
+ */
+public class CountCache {
+
+    private static final int MAX_ENTRIES = 1024;
+
+    private final long ttlMillis;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public CountCache(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Count documents matching the query, serving from cache when fresh.
+     * Unfiltered counts use collection metadata instead of scanning.
+     */
+    public Future<Long> count(MongoClient mongo, String collection, JsonObject query) {
+        return count(mongo, collection, query, null);
+    }
+
+    /**
+     * Count with options (a collation); counts with and without options are
+     * cached separately
+     */
+    public Future<Long> count(MongoClient mongo, String collection, JsonObject query, CountOptions options) {
+        String key = options == null ? normalize(query) : normalize(query) + "|" + options.toJson().encode();
+        Entry entry = entries.get(key);
+        long now = System.currentTimeMillis();
+        if (entry != null && entry.expiresAt > now) {
+            hits.incrementAndGet();
+            return Future.succeededFuture(entry.count);
+        }
+        misses.incrementAndGet();
+
+        long startGeneration = generation.get();
+        Future<Long> count = query.isEmpty()
+                ? estimatedCount(mongo, collection)
+                : options == null
+                        ? Metrics.getInstance().mongo("count", () -> mongo.count(collection, query))
+                        : Metrics.getInstance().mongo("countWithOptions", () ->
+                                mongo.countWithOptions(collection, query, options));
+        return count.onSuccess(n -> {
+            if (generation.get() != startGeneration) {
+                return;
+            }
+            if (entries.size() >= MAX_ENTRIES) {
+                entries.clear();
+            }
+            entries.put(key, new Entry(n, System.currentTimeMillis() + ttlMillis));
+        });
+    }
+
+    /**
+     * Drop every cached count; called after any write to the collection
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * Hit/miss counters for sizing the TTL
+     */
+    public JsonObject stats() {
+        return new JsonObject()
+                .put("size", entries.size())
+                .put("hits", hits.get())
+                .put("misses", misses.get())
+                .put("ttlMs", ttlMillis);
+    }
+
+    /**
+     * Metadata-based count, equivalent to estimatedDocumentCount which the Vert.x
+     * client does not expose
+     */
+    private static Future<Long> estimatedCount(MongoClient mongo, String collection) {
+        return Metrics.getInstance().mongo("runCommand", () ->
+                mongo.runCommand("count", new JsonObject().put("count", collection)))
+                .map(reply -> ((Number) reply.getValue("n")).longValue());
+    }
+
+    /**
+     * Key-order independent encoding of a query
+     */
+    public static String normalize(JsonObject query) {
+        return new JsonObject(canonical(query)).encode();
+    }
+
+    private static Map<String, Object> canonical(JsonObject json) {
+        Map<String, Object> sorted = new TreeMap<>();
+        json.forEach(e -> sorted.put(e.getKey(), canonicalValue(e.getValue())));
+        return sorted;
+    }
+
+    private static Object canonicalValue(Object value) {
+        if (value instanceof JsonObject json) {
+            return canonical(json);
+        }
+        if (value instanceof JsonArray array) {
+            List<Object> list = new ArrayList<>(array.size());
+            array.forEach(v -> list.add(canonicalValue(v)));
+            return list;
+        }
+        return value;
+    }
+
+    private static final class Entry {
+        final long count;
+        final long expiresAt;
+
+        Entry(long count, long expiresAt) {
+            this.count = count;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
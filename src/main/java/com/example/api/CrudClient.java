@@ -0,0 +1,571 @@
+package com.example.api;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
+import io.vertx.core.json.JsonObject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Sends crud.* requests from the HTTP handlers to a MasterCrudVerticle.
+ *
+ * With local-first routing (the default) a request goes to the master in this
+ * JVM through its local-only address ({@code crud.get.local} etc.), skipping
+ * cluster round-robin and wire serialization. It falls over to the clustered
+ * address when no local master is deployed, when too many local requests are
+ * already in flight, or while the local master is marked unhealthy after
+ * repeated timeouts.
+ *
+ * Keyed requests are sent to the key's partition address (crud.get.3) when
+ * the cluster is partitioned, see {@link PartitionTable}; the local attempt is
+ * only made when this JVM owns that partition. Unkeyed requests go
+ * round-robin to the partition addresses, over the partitions mastered in
+ * this JVM when there are any and routing is local-first. A partition with
+ * no master at the moment (it is moving between nodes) is skipped for the
+ * next one: all masters share the database.
+ *
+ * The current request's id and timing context ({@link RequestTiming}) travel
+ * in the request's headers. Each address has an {@link AdaptiveLimiter}; a
+ * request over its limit fails at once with a 503 ReplyException.
+ *
+ * For the idempotent reads ({@link #HEDGED}) the send timeout a handler passes
+ * is a ceiling: once the address has enough recent replies its timeout is
+ * timeoutMultiplier x their p99 (at least minTimeoutMs). Writes keep the
+ * caller's timeout, since a write cut off early may still be applied and a
+ * retry would duplicate it. Every address and target (the local master, the clustered
+ * address, or a node for resource.* requests) has a {@link CircuitBreaker};
+ * while one is open requests to that target fail at once with a 503, or for
+ * the local master go to the cluster instead. With hedgeReads, idempotent
+ * reads ({@link #HEDGED}) send a second request to another target when no
+ * reply has come within the address's p95, and the first reply wins. The
+ * backup needs its own limiter slot and is skipped when the address is near
+ * its limit. Breakers of nodes that leave the cluster are dropped.
+ *
+ * Config:
+ * - crudRouting: "local-first" (default) or "cluster"
+ * - localMaxInFlight: local requests before overflowing to the cluster (256)
+ * - localUnhealthyAfterFailures / localUnhealthyForMs: local master breaker
+ *   (5 timeouts / 5000 ms)
+ * - breakerFailureThreshold / breakerOpenMs: other breakers (5 / 5000 ms)
+ * - adaptiveTimeouts (true), timeoutMultiplier (3.0), minTimeoutMs (200)
+ * - hedgeReads (false), hedgeMinDelayMs (5)
+ */
+public class CrudClient {
+
+    /**
+     * Suffix of the local-only addresses MasterCrudVerticle also consumes
+     */
+    public static final String LOCAL_SUFFIX = ".local";
+
+    /**
+     * Idempotent reads that may be hedged
+     */
+    public static final Set<String> HEDGED = Set.of("crud.get", "crud.list", "resource.lookup");
+
+    private static final String LOCAL_TARGET = "local";
+    private static final String CLUSTER_TARGET = "cluster";
+
+    private static CrudClient instance;
+
+    private volatile boolean preferLocal = true;
+    private volatile int localMaxInFlight = 256;
+    private volatile int unhealthyAfterFailures = 5;
+    private volatile long unhealthyForMillis = 5000;
+    private volatile int breakerFailureThreshold = 5;
+    private volatile long breakerOpenMillis = 5000;
+    private volatile boolean adaptiveTimeouts = true;
+    private volatile double timeoutMultiplier = 3.0;
+    private volatile long minTimeoutMillis = 200;
+    private volatile boolean hedgeReads;
+    private volatile long hedgeMinDelayMillis = 5;
+
+    private final ConcurrentHashMap<String, AdaptiveLimiter> limiters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    private final AtomicInteger localInFlight = new AtomicInteger();
+    private final AtomicInteger nextPartition = new AtomicInteger();
+
+    private final AtomicLong localRequests = new AtomicLong();
+    private final AtomicLong remoteRequests = new AtomicLong();
+    private final AtomicLong saturatedFallbacks = new AtomicLong();
+    private final AtomicLong unhealthyFallbacks = new AtomicLong();
+    private final AtomicLong noHandlerFallbacks = new AtomicLong();
+    private final AtomicLong partitionedRequests = new AtomicLong();
+    private final AtomicLong partitionFallbacks = new AtomicLong();
+    private final AtomicLong adaptedTimeouts = new AtomicLong();
+    private final AtomicLong breakerRejections = new AtomicLong();
+    private final AtomicLong hedgedRequests = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong hedgesSkipped = new AtomicLong();
+    private final AtomicLong breakersPruned = new AtomicLong();
+
+    private CrudClient() {
+        // Private constructor for singleton pattern
+    }
+
+    /**
+     * Get singleton instance of CrudClient
+     */
+    public static CrudClient getInstance() {
+        if (instance == null) {
+            synchronized (CrudClient.class) {
+                if (instance == null) {
+                    instance = new CrudClient();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Apply routing settings from verticle config
+     */
+    public void configure(JsonObject config) {
+        preferLocal = !"cluster".equals(config.getString("crudRouting", "local-first"));
+        localMaxInFlight = config.getInteger("localMaxInFlight", 256);
+        unhealthyAfterFailures = config.getInteger("localUnhealthyAfterFailures", 5);
+        unhealthyForMillis = config.getLong("localUnhealthyForMs", 5000L);
+        breakerFailureThreshold = config.getInteger("breakerFailureThreshold", 5);
+        breakerOpenMillis = config.getLong("breakerOpenMs", 5000L);
+        adaptiveTimeouts = config.getBoolean("adaptiveTimeouts", true);
+        timeoutMultiplier = Math.max(1.0, config.getDouble("timeoutMultiplier", 3.0));
+        minTimeoutMillis = Math.max(1, config.getLong("minTimeoutMs", 200L));
+        hedgeReads = config.getBoolean("hedgeReads", false);
+        hedgeMinDelayMillis = Math.max(1, config.getLong("hedgeMinDelayMs", 5L));
+        if (config.containsKey("partitions")) {
+            // HTTP-only nodes learn the cluster's partition count from config
+            PartitionTable.getInstance().setPartitions(config.getInteger("partitions"));
+        }
+    }
+
+    /**
+     * Request/reply to a crud.* address, preferring the co-located master
+     */
+    public Future<Message<Object>> request(Vertx vertx, String address, Object body, DeliveryOptions options) {
+        PartitionTable table = PartitionTable.getInstance();
+        if (table.isPartitioned()) {
+            return requestPartition(vertx, address, roundRobin(table), body, options);
+        }
+        return track(vertx, address, options,
+                () -> dispatch(vertx, address, body, options, true),
+                () -> send(vertx, address, CLUSTER_TARGET, body, options));
+    }
+
+    /**
+     * Request/reply routed by key (resource id, or a client-supplied key for
+     * creates) to the owning partition's master
+     */
+    public Future<Message<Object>> request(Vertx vertx, String address, String key, Object body,
+            DeliveryOptions options) {
+        PartitionTable table = PartitionTable.getInstance();
+        if (key == null || !table.isPartitioned()) {
+            return request(vertx, address, body, options);
+        }
+        return requestPartition(vertx, address, table.partitionOf(key), body, options);
+    }
+
+    /**
+     * Request/reply to every partition's master (or the one shared master when
+     * unpartitioned), for cluster-wide statistics; completes with the bodies
+     * of the replies that arrived, and fails only if none did
+     */
+    public Future<List<Object>> requestEach(Vertx vertx, String address, Object body, long timeoutMillis) {
+        PartitionTable table = PartitionTable.getInstance();
+        if (!table.isPartitioned()) {
+            return request(vertx, address, body, new DeliveryOptions().setSendTimeout(timeoutMillis))
+                    .map(reply -> List.of(reply.body()));
+        }
+        List<Future<Message<Object>>> replies = new ArrayList<>(table.partitions());
+        for (int p = 0; p < table.partitions(); p++) {
+            String partitioned = PartitionTable.address(address, p);
+            DeliveryOptions options = new DeliveryOptions().setSendTimeout(timeoutMillis);
+            boolean local = table.ownsLocally(p);
+            replies.add(track(vertx, address, options,
+                    () -> dispatch(vertx, partitioned, body, options, local), null));
+        }
+        return Future.join(replies).transform(ar -> {
+            List<Object> bodies = new ArrayList<>();
+            for (Future<Message<Object>> reply : replies) {
+                if (reply.succeeded()) {
+                    bodies.add(reply.result().body());
+                }
+            }
+            return bodies.isEmpty() ? Future.failedFuture(replies.get(0).cause()) : Future.succeededFuture(bodies);
+        });
+    }
+
+    private Future<Message<Object>> requestPartition(Vertx vertx, String address, int partition, Object body,
+            DeliveryOptions options) {
+        PartitionTable table = PartitionTable.getInstance();
+        String partitioned = PartitionTable.address(address, partition);
+        partitionedRequests.incrementAndGet();
+        return track(vertx, address, options,
+                () -> fallBackToNextPartition(vertx, address, partition, 1, body, options,
+                        dispatch(vertx, partitioned, body, options, table.ownsLocally(partition))),
+                () -> fallBackToNextPartition(vertx, address, partition, 1, body, options,
+                        send(vertx, partitioned, CLUSTER_TARGET, body, options)));
+    }
+
+    /**
+     * On NO_HANDLERS (nothing was delivered, so resending is safe) try the
+     * following partitions' masters in turn
+     */
+    private Future<Message<Object>> fallBackToNextPartition(Vertx vertx, String address, int partition,
+            int attempt, Object body, DeliveryOptions options, Future<Message<Object>> reply) {
+        return reply.recover(err -> {
+            int partitions = PartitionTable.getInstance().partitions();
+            if (err instanceof ReplyException re && re.failureType() == ReplyFailure.NO_HANDLERS
+                    && attempt < partitions) {
+                partitionFallbacks.incrementAndGet();
+                String next = PartitionTable.address(address, (partition + attempt) % partitions);
+                return fallBackToNextPartition(vertx, address, partition, attempt + 1, body, options,
+                        send(vertx, next, CLUSTER_TARGET, body, options));
+            }
+            return Future.failedFuture(err);
+        });
+    }
+
+    /**
+     * Partition for an unkeyed request: the next of this JVM's partitions
+     * when local-first and it masters any, otherwise the next of all
+     */
+    private int roundRobin(PartitionTable table) {
+        int next = nextPartition.getAndIncrement() & Integer.MAX_VALUE;
+        List<Integer> owned = table.ownedLocally();
+        if (preferLocal && !owned.isEmpty()) {
+            return owned.get(next % owned.size());
+        }
+        return next % table.partitions();
+    }
+
+    /**
+     * Request/reply to a resource.* address on one node, or on the shared
+     * address when nodeId is null
+     */
+    public Future<Message<Object>> requestNode(Vertx vertx, String address, String nodeId, Object body,
+            DeliveryOptions options) {
+        return track(vertx, address, options, () -> sendToNode(vertx, address, nodeId, body, options), null);
+    }
+
+    /**
+     * Request/reply to the first owner that answers, in order; owners whose
+     * breaker is open are tried last. A not-found is only reported if every
+     * owner said so. Hedged reads also start at the second owner after the
+     * p95 delay.
+     */
+    public Future<Message<Object>> requestOwners(Vertx vertx, String address, List<String> owners, Object body,
+            DeliveryOptions options) {
+        List<String> ordered = new ArrayList<>(owners.size());
+        List<String> open = new ArrayList<>();
+        for (String owner : owners) {
+            (breaker(address, owner).isOpen() ? open : ordered).add(owner);
+        }
+        ordered.addAll(open);
+        return track(vertx, address, options,
+                () -> failover(vertx, address, ordered, 0, body, options),
+                ordered.size() > 1 ? () -> failover(vertx, address, ordered, 1, body, options) : null);
+    }
+
+    private Future<Message<Object>> failover(Vertx vertx, String address, List<String> owners, int index,
+            Object body, DeliveryOptions options) {
+        return sendToNode(vertx, address, owners.get(index), body, options)
+                .recover(err -> index + 1 < owners.size()
+                        ? failover(vertx, address, owners, index + 1, body, options).recover(next -> Future.failedFuture(
+                                isNotFound(err) ? next : err))
+                        : Future.failedFuture(err));
+    }
+
+    private Future<Message<Object>> sendToNode(Vertx vertx, String address, String nodeId, Object body,
+            DeliveryOptions options) {
+        return nodeId == null
+                ? send(vertx, address, CLUSTER_TARGET, body, options)
+                : send(vertx, ClusterMembership.address(address, nodeId), nodeId, body, options);
+    }
+
+    private static boolean isNotFound(Throwable err) {
+        return err instanceof ReplyException re && re.failureCode() == 404;
+    }
+
+    /**
+     * Admit the request through the address's {@link AdaptiveLimiter} (a 503
+     * ReplyException when shed), apply the adaptive timeout, then send it,
+     * hedged when allowed, with metrics and request timing
+     */
+    private Future<Message<Object>> track(Vertx vertx, String address, DeliveryOptions options,
+            Supplier<Future<Message<Object>>> send, Supplier<Future<Message<Object>>> hedge) {
+        AdaptiveLimiter limiter = limiter(address);
+        AdaptiveLimiter.Priority priority = AdaptiveLimiter.Priority.ofAddress(address);
+        if (limiter != null && !limiter.tryAcquire(priority)) {
+            return Future.failedFuture(new ReplyException(ReplyFailure.RECIPIENT_FAILURE, 503,
+                    "Too many requests in flight to " + address));
+        }
+        Metrics.Timer timer = Metrics.getInstance().request(address);
+        applyTimeout(address, timer, options);
+        RequestTiming timing = RequestTiming.current();
+        if (timing != null) {
+            timing.propagate(options);
+        }
+        long hedgeDelay = hedge != null && hedgeReads && HEDGED.contains(address) ? hedgeDelay(timer) : 0;
+        long started = timer.start();
+        Future<Message<Object>> reply = hedgeDelay > 0
+                ? new Hedge(vertx, limiter, priority).run(hedgeDelay, send, hedge)
+                : send.get();
+        return reply
+                .onComplete(ar -> {
+                    timer.stop(started, failed(ar.cause()));
+                    if (limiter != null) {
+                        limiter.release(priority, System.nanoTime() - started, overloaded(ar.cause()));
+                    }
+                    if (timing != null) {
+                        timing.received(started, ar);
+                    }
+                });
+    }
+
+    /**
+     * Lower the caller's send timeout for an idempotent read to
+     * timeoutMultiplier x the address's recent p99
+     */
+    private void applyTimeout(String address, Metrics.Timer timer, DeliveryOptions options) {
+        if (!adaptiveTimeouts || !HEDGED.contains(address)) {
+            return;
+        }
+        long p99 = timer.p99Nanos();
+        if (p99 == 0) {
+            return;
+        }
+        long adaptive = Math.max(minTimeoutMillis, (long) (p99 / 1e6 * timeoutMultiplier));
+        if (adaptive < options.getSendTimeout()) {
+            options.setSendTimeout(adaptive);
+            adaptedTimeouts.incrementAndGet();
+        }
+    }
+
+    private long hedgeDelay(Metrics.Timer timer) {
+        long p95 = timer.p95Nanos();
+        return p95 == 0 ? 0 : Math.max(hedgeMinDelayMillis, p95 / 1_000_000);
+    }
+
+    /**
+     * A request with a backup sent after a delay; the first success wins. A
+     * primary that fails before the delay fails the request without a backup.
+     * The backup holds its own limiter slot and is not sent when none is
+     * spare. Callbacks all run on the caller's context.
+     */
+    private final class Hedge {
+        private final Vertx vertx;
+        private final AdaptiveLimiter limiter;
+        private final AdaptiveLimiter.Priority priority;
+        private final Promise<Message<Object>> result = Promise.promise();
+        private int pending = 1;
+        private boolean backupSent;
+        private long timerId;
+
+        Hedge(Vertx vertx, AdaptiveLimiter limiter, AdaptiveLimiter.Priority priority) {
+            this.vertx = vertx;
+            this.limiter = limiter;
+            this.priority = priority;
+        }
+
+        Future<Message<Object>> run(long delayMillis, Supplier<Future<Message<Object>>> primary,
+                Supplier<Future<Message<Object>>> backup) {
+            timerId = vertx.setTimer(delayMillis, t -> {
+                if (result.future().isComplete()) {
+                    return;
+                }
+                if (limiter != null && !limiter.tryAcquireOptional(priority)) {
+                    hedgesSkipped.incrementAndGet();
+                    return;
+                }
+                backupSent = true;
+                pending++;
+                hedgedRequests.incrementAndGet();
+                long started = System.nanoTime();
+                backup.get().onComplete(ar -> {
+                    if (limiter != null) {
+                        limiter.release(priority, System.nanoTime() - started, overloaded(ar.cause()));
+                    }
+                    settle(ar, true);
+                });
+            });
+            primary.get().onComplete(ar -> settle(ar, false));
+            return result.future();
+        }
+
+        private void settle(AsyncResult<Message<Object>> ar, boolean fromBackup) {
+            pending--;
+            if (ar.succeeded()) {
+                if (result.tryComplete(ar.result())) {
+                    vertx.cancelTimer(timerId);
+                    if (fromBackup) {
+                        hedgeWins.incrementAndGet();
+                    }
+                }
+            } else if (pending == 0 && (backupSent || !fromBackup)) {
+                vertx.cancelTimer(timerId);
+                result.tryFail(ar.cause());
+            }
+        }
+    }
+
+    private AdaptiveLimiter limiter(String address) {
+        if (!AdaptiveLimiter.isEnabled()) {
+            return null;
+        }
+        return limiters.computeIfAbsent(address, a -> AdaptiveLimiter.create("eventbus", a));
+    }
+
+    /**
+     * Whether a failure signals an overloaded master (timeout or 5xx) to the
+     * address's limiter
+     */
+    private static boolean overloaded(Throwable err) {
+        if (!(err instanceof ReplyException re)) {
+            return err != null;
+        }
+        return re.failureType() == ReplyFailure.TIMEOUT
+                || (re.failureType() == ReplyFailure.RECIPIENT_FAILURE && re.failureCode() >= 500);
+    }
+
+    /**
+     * Whether a request failure counts as an error in the metrics; 4xx
+     * replies are the master's answer, not a failure to get one
+     */
+    private static boolean failed(Throwable err) {
+        return err != null && !(err instanceof ReplyException re
+                && re.failureType() == ReplyFailure.RECIPIENT_FAILURE && re.failureCode() < 500);
+    }
+
+    private Future<Message<Object>> dispatch(Vertx vertx, String address, Object body, DeliveryOptions options,
+            boolean tryLocal) {
+        if (!preferLocal || !tryLocal) {
+            return send(vertx, address, CLUSTER_TARGET, body, options);
+        }
+        if (localInFlight.incrementAndGet() > localMaxInFlight) {
+            localInFlight.decrementAndGet();
+            saturatedFallbacks.incrementAndGet();
+            return send(vertx, address, CLUSTER_TARGET, body, options);
+        }
+        CircuitBreaker breaker = breaker(address, LOCAL_TARGET);
+        if (!breaker.allowRequest()) {
+            localInFlight.decrementAndGet();
+            unhealthyFallbacks.incrementAndGet();
+            return send(vertx, address, CLUSTER_TARGET, body, options);
+        }
+        localRequests.incrementAndGet();
+        return vertx.eventBus().request(address + LOCAL_SUFFIX, body, options)
+                .transform(ar -> {
+                    localInFlight.decrementAndGet();
+                    if (ar.cause() instanceof ReplyException re && re.failureType() == ReplyFailure.TIMEOUT) {
+                        breaker.onFailure();
+                    } else {
+                        breaker.onSuccess();
+                    }
+                    if (ar.cause() instanceof ReplyException re && re.failureType() == ReplyFailure.NO_HANDLERS) {
+                        // Nothing was delivered, so the request is safe to resend
+                        noHandlerFallbacks.incrementAndGet();
+                        return send(vertx, address, CLUSTER_TARGET, body, options);
+                    }
+                    return ar.succeeded() ? Future.succeededFuture(ar.result()) : Future.failedFuture(ar.cause());
+                });
+    }
+
+    /**
+     * Send through the breaker of the address and target; an open breaker
+     * fails the request at once with a 503
+     */
+    private Future<Message<Object>> send(Vertx vertx, String address, String target, Object body,
+            DeliveryOptions options) {
+        CircuitBreaker breaker = breaker(address, target);
+        if (!breaker.allowRequest()) {
+            breakerRejections.incrementAndGet();
+            return Future.failedFuture(new ReplyException(ReplyFailure.RECIPIENT_FAILURE, 503,
+                    "Circuit open for " + address + " (" + target + ")"));
+        }
+        remoteRequests.incrementAndGet();
+        return vertx.eventBus().request(address, body, options)
+                .onComplete(ar -> {
+                    if (overloaded(ar.cause())) {
+                        breaker.onFailure();
+                    } else {
+                        breaker.onSuccess();
+                    }
+                });
+    }
+
+    /**
+     * Drop the breakers of node targets that are no longer cluster members;
+     * called by {@link ClusterMembership} when membership changes
+     */
+    void retainNodes(Collection<String> nodes) {
+        Set<String> members = new HashSet<>(nodes);
+        breakers.keySet().removeIf(key -> {
+            String target = key.substring(key.lastIndexOf('@') + 1);
+            boolean gone = !LOCAL_TARGET.equals(target) && !CLUSTER_TARGET.equals(target)
+                    && !members.contains(target);
+            if (gone) {
+                breakersPruned.incrementAndGet();
+            }
+            return gone;
+        });
+    }
+
+    private CircuitBreaker breaker(String address, String target) {
+        return breakers.computeIfAbsent(address + "@" + target, key -> LOCAL_TARGET.equals(target)
+                ? new CircuitBreaker(unhealthyAfterFailures, unhealthyForMillis)
+                : new CircuitBreaker(breakerFailureThreshold, breakerOpenMillis));
+    }
+
+    /**
+     * Local vs remote dispatch counters
+     */
+    public JsonObject stats() {
+        return new JsonObject()
+                .put("mode", preferLocal ? "local-first" : "cluster")
+                .put("local", localRequests.get())
+                .put("remote", remoteRequests.get())
+                .put("localInFlight", localInFlight.get())
+                .put("localHealthy", breakers.entrySet().stream()
+                        .noneMatch(e -> e.getKey().endsWith("@" + LOCAL_TARGET) && e.getValue().isOpen()))
+                .put("saturatedFallbacks", saturatedFallbacks.get())
+                .put("unhealthyFallbacks", unhealthyFallbacks.get())
+                .put("noHandlerFallbacks", noHandlerFallbacks.get())
+                .put("partitioned", partitionedRequests.get())
+                .put("partitionFallbacks", partitionFallbacks.get())
+                .put("adaptedTimeouts", adaptedTimeouts.get())
+                .put("breakerRejections", breakerRejections.get())
+                .put("hedged", hedgedRequests.get())
+                .put("hedgeWins", hedgeWins.get())
+                .put("hedgesSkipped", hedgesSkipped.get())
+                .put("breakersPruned", breakersPruned.get())
+                .put("breakers", breakerStats())
+                .put("partitioning", PartitionTable.getInstance().stats());
+    }
+
+    /**
+     * Breakers that are not closed
+     */
+    private JsonObject breakerStats() {
+        JsonObject stats = new JsonObject();
+        breakers.forEach((key, breaker) -> {
+            JsonObject breakerStats = breaker.stats();
+            if (!"CLOSED".equals(breakerStats.getString("state"))) {
+                stats.put(key, breakerStats);
+            }
+        });
+        return stats;
+    }
+}
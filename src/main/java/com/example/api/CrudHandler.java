@@ -1,17 +1,29 @@
 package com.example.api;
 
-import io.vertx.core.json.JsonArray;
+import io.vertx.core.Future;
 import io.vertx.core.json.JsonObject;
-import io.vertx.ext.mongo.FindOptions;
 import io.vertx.ext.mongo.MongoClient;
 import io.vertx.ext.web.RoutingContext;
-import java.util.regex.Pattern;
+import java.util.List;
 
 /**
  * Handler class containing all CRUD operations for resources
  */
 public class CrudHandler {
 
+    private static final HotPathLog.Path LOG = HotPathLog.path("http.getResourceById");
+
+    /**
+     * Short-TTL cache for list totals, invalidated by the write handlers below
+     */
+    private static final CountCache countCache = new CountCache(5000);
+
+    /**
+     * Per-owner timeout for owner-routed resource.* requests, so a dead owner
+     * fails over to the next replica quickly
+     */
+    private static final long OWNER_TIMEOUT_MS = 5000;
+
     /**
      * Get MongoClient from DatabaseManager
      */
@@ -50,65 +62,24 @@ public class CrudHandler {
                 .put("category", body.getString("category", ""));
 
         // Insert into MongoDB
-        mongoClient.insert("resources", resource)
+        Metrics.getInstance().mongo("insert", () -> mongoClient.insert("resources", resource))
                 .onSuccess(insertId -> {
+                    countCache.invalidateAll();
                     resource.put("_id", insertId);
                     RouterUtility.sendCreated(ctx, resource);
                 })
                 .onFailure(err -> RouterUtility.sendServerError(ctx, "Failed to create resource: " + err.getMessage()));
     }
 
-    /**
-     * Get all resources with optional filtering and pagination
-     */
-    public static void getAllResources(RoutingContext ctx) {
-        MongoClient mongoClient = getMongoClient();
-
-        // Parse pagination parameters
-        RouterUtility.PaginationParams pagination = RouterUtility.parsePaginationParams(ctx);
-
-        // Parse filter parameter
-        String filterParam = ctx.request().getParam("filter");
-        JsonObject query = parseFilter(filterParam);
-
-        // Count total documents
-        mongoClient.count("resources", query)
-                .onSuccess(totalCount -> {
-                    // Find documents with pagination
-                    FindOptions options = new FindOptions()
-                            .setSkip((pagination.page - 1) * pagination.limit)
-                            .setLimit(pagination.limit)
-                            .setSort(new JsonObject().put("_id", 1));
-
-                    mongoClient.findWithOptions("resources", query, options)
-                            .onSuccess(documents -> {
-                                JsonArray resources = new JsonArray(documents);
-
-                                JsonObject response = new JsonObject()
-                                        .put("data", resources)
-                                        .put("pagination", new JsonObject()
-                                                .put("page", pagination.page)
-                                                .put("limit", pagination.limit)
-                                                .put("total", totalCount)
-                                                .put("pages", (int) Math.ceil((double) totalCount / pagination.limit)));
-
-                                RouterUtility.sendJsonResponse(ctx, response);
-                            })
-                            .onFailure(err -> RouterUtility.sendServerError(ctx,
-                                    "Failed to retrieve resources: " + err.getMessage()));
-                })
-                .onFailure(err -> RouterUtility.sendServerError(ctx, "Failed to count resources: " + err.getMessage()));
-    }
-
     /**
      * Get a resource by ID using Event Bus communication only
      * Both services can store and retrieve IDs via clustered Event Bus
-     * Action determined by 'action' query parameter: 'store' or 'retrieve'
-     * (default: retrieve)
+     * Action determined by 'action' query parameter: 'store', 'retrieve' or
+     * 'history' (default: retrieve; history takes an optional 'limit')
      */
     public static void getResourceById(RoutingContext ctx) {
         String id = ctx.pathParam("id");
-        String actionParam = ctx.request().getParam("action"); // 'store' or 'retrieve'
+        String actionParam = ctx.request().getParam("action"); // 'store', 'retrieve' or 'history'
 
         if (id == null || id.trim().isEmpty()) {
             RouterUtility.sendBadRequest(ctx, "Resource ID is required");
@@ -124,7 +95,7 @@ public class CrudHandler {
 
         if ("store".equalsIgnoreCase(action)) {
             // Store behavior: use Event Bus to store in clustered services
-            System.out.println("[" + serviceName + "] Storing ID: " + id + " via clustered Event Bus");
+            LOG.debug("[{}] Storing ID: {} via clustered Event Bus", serviceName, id);
 
             JsonObject storeRequest = new JsonObject()
                     .put("action", "store")
@@ -132,44 +103,88 @@ public class CrudHandler {
                     .put("value", id);
 
             // Send Event Bus request to store the resource
-            ctx.vertx().eventBus().request("resource.store", storeRequest,
-                    new io.vertx.core.eventbus.DeliveryOptions().setSendTimeout(30000))
-                    .onSuccess(reply -> {
-                        JsonObject storeResponse = (JsonObject) reply.body();
+            storeVersion(ctx.vertx(), id, storeRequest, serverPort)
+                    .onSuccess(storeResponse -> {
                         String timestamp = storeResponse.getString("timestamp");
-                        System.out.println("[" + serviceName + "] ID stored successfully via clustered Event Bus at: "
-                                + timestamp);
+                        LOG.debug("[{}] ID stored successfully via clustered Event Bus at: {}", serviceName, timestamp);
 
                         JsonObject response = new JsonObject()
                                 .put("stored", id)
                                 .put("timestamp", timestamp)
                                 .put("originalPort", storeResponse.getInteger("port"))
+                                .put("replicas", storeResponse.getInteger("replicas", 1))
                                 .put("source", "ClusteredEventBus")
                                 .put("message", "ID stored successfully via clustered Event Bus at " + timestamp);
                         RouterUtility.sendJsonResponse(ctx, response);
                     })
                     .onFailure(err -> {
-                        System.out.println("[" + serviceName + "] Event Bus store request failed: " + err.getMessage());
+                        LOG.warn("[{}] Event Bus store request failed: {}", serviceName, err.getMessage());
+                        if (err instanceof io.vertx.core.eventbus.ReplyException replyException
+                                && replyException.failureCode() == 503) {
+                            RouterUtility.sendOverloaded(ctx, replyException.getMessage());
+                            return;
+                        }
                         RouterUtility.sendServerError(ctx,
                                 "Failed to store via clustered Event Bus: " + err.getMessage());
                     });
 
+        } else if ("history".equalsIgnoreCase(action)) {
+            int limit;
+            try {
+                limit = Integer.parseInt(ctx.request().getParam("limit", "100"));
+            } catch (NumberFormatException e) {
+                RouterUtility.sendBadRequest(ctx, "Invalid limit");
+                return;
+            }
+            JsonObject historyRequest = new JsonObject().put("id", id).put("limit", limit);
+            requestOwner(ctx.vertx(), "resource.history", id, historyRequest)
+                    .onSuccess(historyResponse -> {
+                        RouterUtility.sendJsonResponse(ctx, new JsonObject()
+                                .put("id", id)
+                                .put("versions", historyResponse.getJsonArray("versions"))
+                                .put("originalPort", historyResponse.getInteger("port"))
+                                .put("source", "ClusteredEventBus"));
+                    })
+                    .onFailure(err -> {
+                        if (err instanceof io.vertx.core.eventbus.ReplyException replyException
+                                && replyException.failureCode() == 404) {
+                            RouterUtility.sendNotFound(ctx,
+                                    "ID '" + id + "' has no stored versions. Store it first using ?action=store");
+                        } else {
+                            RouterUtility.sendServerError(ctx, "History request failed: " + err.getMessage());
+                        }
+                    });
+
         } else {
             // Retrieve behavior: use Event Bus to search across clustered services
-            System.out.println("[" + serviceName + "] Retrieving ID: " + id + " via clustered Event Bus");
-
-            // Send Event Bus request with 30-second timeout
-            ctx.vertx().eventBus().request("resource.lookup", id,
-                    new io.vertx.core.eventbus.DeliveryOptions().setSendTimeout(30000))
-                    .onSuccess(reply -> {
-                        JsonObject lookupResponse = (JsonObject) reply.body();
+            LOG.debug("[{}] Retrieving ID: {} via clustered Event Bus", serviceName, id);
+
+            // Local read when the store is replicated, otherwise owner routing;
+            // mode=fanout asks every node and keeps the newest version
+            String mode = ctx.request().getParam("mode", VersionReplicator.isEnabled() ? "local" : "owner");
+            Future<JsonObject> lookup;
+            if ("local".equalsIgnoreCase(mode)) {
+                lookup = localLookup(id, serverPort);
+            } else if ("fanout".equalsIgnoreCase(mode)) {
+                try {
+                    long timeout = Math.min(30000, Long.parseLong(ctx.request().getParam("timeoutMs", "2000")));
+                    lookup = ScatterGatherLookup.lookup(ctx.vertx(), id, ctx.request().getParam("quorum"), timeout);
+                } catch (NumberFormatException e) {
+                    RouterUtility.sendBadRequest(ctx, "Invalid quorum or timeoutMs");
+                    return;
+                }
+            } else {
+                lookup = requestOwner(ctx.vertx(), "resource.lookup", id, id);
+            }
+            lookup
+                    .onSuccess(lookupResponse -> {
                         String value = lookupResponse.getString("value");
                         String timestamp = lookupResponse.getString("timestamp");
                         int sourcePort = lookupResponse.getInteger("port");
                         String sourceService = (sourcePort == 8888) ? "Service1" : "Service2";
 
-                        System.out.println("[" + serviceName + "] Successfully retrieved from " + sourceService
-                                + " via clustered Event Bus: " + value + " (stored at: " + timestamp + ")");
+                        LOG.debug("[{}] Successfully retrieved via clustered Event Bus: {} (stored at: {})",
+                                serviceName, value, timestamp);
 
                         JsonObject response = new JsonObject()
                                 .put("fetched", value)
@@ -179,11 +194,15 @@ public class CrudHandler {
                                 .put("message",
                                         "ID retrieved successfully from " + sourceService
                                                 + " via clustered Event Bus (stored at: " + timestamp + ")");
+                        if (lookupResponse.containsKey("quorum")) {
+                            response.put("replies", lookupResponse.getInteger("replies"))
+                                    .put("quorum", lookupResponse.getInteger("quorum"))
+                                    .put("nodes", lookupResponse.getInteger("nodes"));
+                        }
                         RouterUtility.sendJsonResponse(ctx, response);
                     })
                     .onFailure(err -> {
-                        System.out
-                                .println("[" + serviceName + "] Event Bus lookup request failed: " + err.getMessage());
+                        LOG.warn("[{}] Event Bus lookup request failed: {}", serviceName, err.getMessage());
 
                         // Check if it's a ReplyException (from message.fail())
                         if (err instanceof io.vertx.core.eventbus.ReplyException) {
@@ -194,6 +213,11 @@ public class CrudHandler {
                                         "ID '" + id + "' not found in any service. Store it first using ?action=store");
                                 return;
                             }
+                            if (replyException.failureCode() == 503) {
+                                // Shed, or every owner's circuit is open
+                                RouterUtility.sendOverloaded(ctx, replyException.getMessage());
+                                return;
+                            }
                         }
 
                         // Check for NO_HANDLERS (no service available)
@@ -203,12 +227,91 @@ public class CrudHandler {
                         } else {
                             // Timeout or other errors
                             RouterUtility.sendServerError(ctx,
-                                    "Timeout: No response from clustered services via Event Bus after 30 seconds");
+                                    "Timeout: No response from clustered services via Event Bus");
                         }
                     });
         }
     }
 
+    /**
+     * Store a version. With replication enabled it is written to this node's
+     * store and propagated asynchronously; otherwise it goes to every owner of
+     * the id (all in parallel) and succeeds when at least one owner
+     * acknowledged, with "replicas" set to the number that did. Unclustered,
+     * the shared resource.store address is used.
+     */
+    private static Future<JsonObject> storeVersion(io.vertx.core.Vertx vertx, String id, JsonObject storeRequest,
+            int serverPort) {
+        if (VersionReplicator.isEnabled()) {
+            return VersionStore.getInstance().append(id, storeRequest.getString("value"))
+                    .map(version -> new JsonObject()
+                            .put("stored", id)
+                            .put("timestamp", version.timestamp())
+                            .put("port", serverPort));
+        }
+        List<String> owners = ClusterMembership.getInstance().owners(id);
+        CrudClient client = CrudClient.getInstance();
+        if (owners.isEmpty()) {
+            return client.requestNode(vertx, "resource.store", null, storeRequest,
+                    new io.vertx.core.eventbus.DeliveryOptions().setSendTimeout(30000))
+                    .map(reply -> (JsonObject) reply.body());
+        }
+        List<Future<io.vertx.core.eventbus.Message<Object>>> writes = new java.util.ArrayList<>();
+        for (String owner : owners) {
+            writes.add(client.requestNode(vertx, "resource.store", owner, storeRequest,
+                    new io.vertx.core.eventbus.DeliveryOptions().setSendTimeout(OWNER_TIMEOUT_MS)));
+        }
+        return Future.join(writes).transform(ar -> {
+            JsonObject first = null;
+            int acked = 0;
+            for (Future<io.vertx.core.eventbus.Message<Object>> write : writes) {
+                if (write.succeeded()) {
+                    acked++;
+                    if (first == null) {
+                        first = (JsonObject) write.result().body();
+                    }
+                }
+            }
+            if (first == null) {
+                return Future.failedFuture(writes.get(0).cause());
+            }
+            return Future.succeededFuture(first.copy().put("replicas", acked));
+        });
+    }
+
+    /**
+     * Ask the id's owners one at a time, primary first, moving on when an owner
+     * is unreachable, times out, has an open circuit or does not have the id
+     * (e.g. it only just took over the range). Unclustered, the shared address
+     * is used.
+     */
+    private static Future<JsonObject> requestOwner(io.vertx.core.Vertx vertx, String address, String id,
+            Object body) {
+        List<String> owners = ClusterMembership.getInstance().owners(id);
+        CrudClient client = CrudClient.getInstance();
+        Future<io.vertx.core.eventbus.Message<Object>> reply = owners.isEmpty()
+                ? client.requestNode(vertx, address, null, body,
+                        new io.vertx.core.eventbus.DeliveryOptions().setSendTimeout(30000))
+                : client.requestOwners(vertx, address, owners, body,
+                        new io.vertx.core.eventbus.DeliveryOptions().setSendTimeout(OWNER_TIMEOUT_MS));
+        return reply.map(message -> (JsonObject) message.body());
+    }
+
+    /**
+     * Read the replicated store of this node, without a cluster round trip
+     */
+    private static Future<JsonObject> localLookup(String id, int serverPort) {
+        VersionStore.Version latest = VersionStore.getInstance().latest(id);
+        if (latest == null) {
+            return Future.failedFuture(new io.vertx.core.eventbus.ReplyException(
+                    io.vertx.core.eventbus.ReplyFailure.RECIPIENT_FAILURE, 404, "Resource not found"));
+        }
+        return Future.succeededFuture(new JsonObject()
+                .put("value", latest.value)
+                .put("timestamp", latest.timestamp())
+                .put("port", serverPort));
+    }
+
     /**
      * Update a resource completely (PUT)
      */
@@ -234,11 +337,13 @@ public class CrudHandler {
                 .put("description", body.getString("description", ""))
                 .put("category", body.getString("category", ""));
 
-        mongoClient.updateCollection("resources", query, new JsonObject().put("$set", update))
+        Metrics.getInstance().mongo("updateCollection", () ->
+                mongoClient.updateCollection("resources", query, new JsonObject().put("$set", update)))
                 .onSuccess(result -> {
+                    countCache.invalidateAll();
                     if (result.getDocModified() > 0) {
                         // Return updated document
-                        mongoClient.findOne("resources", query, null)
+                        Metrics.getInstance().mongo("findOne", () -> mongoClient.findOne("resources", query, null))
                                 .onSuccess(updated -> RouterUtility.sendJsonResponse(ctx, updated))
                                 .onFailure(err -> RouterUtility.sendServerError(ctx,
                                         "Failed to retrieve updated resource: " + err.getMessage()));
@@ -286,10 +391,12 @@ public class CrudHandler {
             return;
         }
 
-        mongoClient.updateCollection("resources", query, new JsonObject().put("$set", update))
+        Metrics.getInstance().mongo("updateCollection", () ->
+                mongoClient.updateCollection("resources", query, new JsonObject().put("$set", update)))
                 .onSuccess(result -> {
+                    countCache.invalidateAll();
                     if (result.getDocModified() > 0) {
-                        mongoClient.findOne("resources", query, null)
+                        Metrics.getInstance().mongo("findOne", () -> mongoClient.findOne("resources", query, null))
                                 .onSuccess(updated -> RouterUtility.sendJsonResponse(ctx, updated))
                                 .onFailure(err -> RouterUtility.sendServerError(ctx,
                                         "Failed to retrieve updated resource: " + err.getMessage()));
@@ -314,8 +421,9 @@ public class CrudHandler {
 
         JsonObject query = new JsonObject().put("_id", id);
 
-        mongoClient.removeDocument("resources", query)
+        Metrics.getInstance().mongo("removeDocument", () -> mongoClient.removeDocument("resources", query))
                 .onSuccess(result -> {
+                    countCache.invalidateAll();
                     if (result.getRemovedCount() > 0) {
                         RouterUtility.sendNoContent(ctx);
                     } else {
@@ -325,25 +433,4 @@ public class CrudHandler {
                 .onFailure(err -> RouterUtility.sendServerError(ctx, "Failed to delete resource: " + err.getMessage()));
     }
 
-    /**
-     * Parse filter parameter into MongoDB query
-     */
-    private static JsonObject parseFilter(String filterParam) {
-        JsonObject query = new JsonObject();
-
-        if (filterParam != null && !filterParam.trim().isEmpty()) {
-            String[] parts = filterParam.split(":", 2);
-            if (parts.length == 2) {
-                String field = parts[0].trim();
-                String value = parts[1].trim();
-
-                if ("name".equals(field) || "category".equals(field) || "description".equals(field)) {
-                    query.put(field, new JsonObject().put("$regex", Pattern.quote(value)).put("$options", "i"));
-                }
-            }
-        }
-
-        return query;
-    }
-
 }
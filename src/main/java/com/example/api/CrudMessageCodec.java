@@ -0,0 +1,273 @@
+package com.example.api;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.MessageCodec;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary event-bus codec for CRUD commands, resource records and list
+ * pages. Values are written as one type tag byte followed by a fixed-width
+ * number or a varint-length-prefixed payload, so nothing is JSON text encoded
+ * or re-parsed between nodes.
+ *
+ * Local delivery with {@link #options()} is zero-copy: the receiver gets the
+ * sender's instance. The sender hands the body over, so it must not keep or
+ * modify it after sending or replying, and receivers must not modify a body
+ * either (reply with a new object or a copy). A body that stays referenced
+ * elsewhere, such as a cache entry or a result shared by single-flight
+ * waiters, is sent with {@link #sharedOptions()} instead, whose local delivery
+ * hands the receiver a copy.
+ */
+public class CrudMessageCodec implements MessageCodec<JsonObject, JsonObject> {
+
+    public static final String NAME = "crud-binary";
+    public static final String SHARED_NAME = "crud-binary-shared";
+
+    private static final byte NULL = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+    private static final byte INT = 3;
+    private static final byte LONG = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte STRING = 6;
+    private static final byte OBJECT = 7;
+    private static final byte ARRAY = 8;
+    // anything else (Instant, byte[], BigDecimal...) as JSON text, decoded like the default codec would
+    private static final byte JSON = 9;
+
+    /**
+     * Register the codec on this Vert.x instance; safe to call from every verticle
+     */
+    public static void register(Vertx vertx) {
+        try {
+            vertx.eventBus().registerCodec(new CrudMessageCodec());
+            vertx.eventBus().registerCodec(new Shared());
+        } catch (IllegalStateException alreadyRegistered) {
+            // registered by another verticle on this instance
+        }
+    }
+
+    /**
+     * Delivery options selecting this codec for a JsonObject body the sender
+     * hands over
+     */
+    public static DeliveryOptions options() {
+        return new DeliveryOptions().setCodecName(NAME);
+    }
+
+    /**
+     * Delivery options for a body that is still referenced elsewhere (cached
+     * or shared); the same wire format, but local receivers get a copy
+     */
+    public static DeliveryOptions sharedOptions() {
+        return new DeliveryOptions().setCodecName(SHARED_NAME);
+    }
+
+    @Override
+    public void encodeToWire(Buffer buffer, JsonObject json) {
+        if (json == null) {
+            buffer.appendInt(-1);
+            return;
+        }
+        int start = buffer.length();
+        buffer.appendInt(0);
+        writeObject(buffer, json.getMap());
+        buffer.setInt(start, buffer.length() - start - 4);
+    }
+
+    @Override
+    public JsonObject decodeFromWire(int pos, Buffer buffer) {
+        if (buffer.getInt(pos) < 0) {
+            return null;
+        }
+        Reader reader = new Reader(buffer, pos + 4);
+        return new JsonObject(reader.readObject());
+    }
+
+    @Override
+    public JsonObject transform(JsonObject json) {
+        return json;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public byte systemCodecID() {
+        return -1;
+    }
+
+    /**
+     * Copying variant for bodies that stay referenced by the sender
+     */
+    static final class Shared extends CrudMessageCodec {
+
+        @Override
+        public JsonObject transform(JsonObject json) {
+            return json == null ? null : json.copy();
+        }
+
+        @Override
+        public String name() {
+            return SHARED_NAME;
+        }
+    }
+
+    private static void writeObject(Buffer buffer, Map<String, Object> map) {
+        writeVarInt(buffer, map.size());
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            writeString(buffer, entry.getKey());
+            writeValue(buffer, entry.getValue());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeValue(Buffer buffer, Object value) {
+        if (value == null) {
+            buffer.appendByte(NULL);
+        } else if (value instanceof String s) {
+            buffer.appendByte(STRING);
+            writeString(buffer, s);
+        } else if (value instanceof Boolean b) {
+            buffer.appendByte(b ? TRUE : FALSE);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            buffer.appendByte(INT).appendInt(((Number) value).intValue());
+        } else if (value instanceof Long l) {
+            buffer.appendByte(LONG).appendLong(l);
+        } else if (value instanceof Double || value instanceof Float) {
+            buffer.appendByte(DOUBLE).appendDouble(((Number) value).doubleValue());
+        } else if (value instanceof JsonObject json) {
+            buffer.appendByte(OBJECT);
+            writeObject(buffer, json.getMap());
+        } else if (value instanceof Map<?, ?> map) {
+            buffer.appendByte(OBJECT);
+            writeObject(buffer, (Map<String, Object>) map);
+        } else if (value instanceof JsonArray array) {
+            buffer.appendByte(ARRAY);
+            writeArray(buffer, array.getList());
+        } else if (value instanceof List<?> list) {
+            buffer.appendByte(ARRAY);
+            writeArray(buffer, list);
+        } else {
+            buffer.appendByte(JSON);
+            writeString(buffer, Json.encode(value));
+        }
+    }
+
+    private static void writeArray(Buffer buffer, List<?> list) {
+        writeVarInt(buffer, list.size());
+        for (Object item : list) {
+            writeValue(buffer, item);
+        }
+    }
+
+    private static void writeString(Buffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(buffer, bytes.length);
+        buffer.appendBytes(bytes);
+    }
+
+    private static void writeVarInt(Buffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.appendByte((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.appendByte((byte) value);
+    }
+
+    /**
+     * Cursor over an encoded message
+     */
+    private static final class Reader {
+        private final Buffer buffer;
+        private int pos;
+
+        Reader(Buffer buffer, int pos) {
+            this.buffer = buffer;
+            this.pos = pos;
+        }
+
+        Map<String, Object> readObject() {
+            int size = readVarInt();
+            Map<String, Object> map = new LinkedHashMap<>(Math.max(16, size * 2));
+            for (int i = 0; i < size; i++) {
+                String key = readString();
+                map.put(key, readValue());
+            }
+            return map;
+        }
+
+        Object readValue() {
+            byte tag = buffer.getByte(pos++);
+            switch (tag) {
+                case NULL:
+                    return null;
+                case FALSE:
+                    return Boolean.FALSE;
+                case TRUE:
+                    return Boolean.TRUE;
+                case INT: {
+                    int value = buffer.getInt(pos);
+                    pos += 4;
+                    return value;
+                }
+                case LONG: {
+                    long value = buffer.getLong(pos);
+                    pos += 8;
+                    return value;
+                }
+                case DOUBLE: {
+                    double value = buffer.getDouble(pos);
+                    pos += 8;
+                    return value;
+                }
+                case STRING:
+                    return readString();
+                case OBJECT:
+                    return new JsonObject(readObject());
+                case ARRAY: {
+                    int size = readVarInt();
+                    List<Object> list = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        list.add(readValue());
+                    }
+                    return new JsonArray(list);
+                }
+                case JSON:
+                    return Json.decodeValue(readString());
+                default:
+                    throw new IllegalStateException("Unknown value tag " + tag + " at " + (pos - 1));
+            }
+        }
+
+        String readString() {
+            int length = readVarInt();
+            String value = buffer.getString(pos, pos + length, "UTF-8");
+            pos += length;
+            return value;
+        }
+
+        int readVarInt() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.getByte(pos++);
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+    }
+}
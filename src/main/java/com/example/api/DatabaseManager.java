@@ -35,7 +35,7 @@ public class DatabaseManager {
     /**
      * Initialize MongoDB client with configuration
      */
-    public Future<Void> initialize(Vertx vertx) {
+    public synchronized Future<Void> initialize(Vertx vertx) {
         if (initialized) {
             return Future.succeededFuture();
         }
@@ -44,9 +44,15 @@ public class DatabaseManager {
                 .put("connection_string", "mongodb://localhost:27017")
                 .put("db_name", "library");
 
+        // Callers time operations per method for /metrics with Metrics.mongo
         mongoClient = MongoClient.createShared(vertx, config);
         initialized = true;
 
+        // Indexes for list filters; startup doesn't wait for Mongo, queries work without them
+        ResourceQueries.ensureIndexes(mongoClient)
+                .onSuccess(v -> System.out.println("DatabaseManager ensured resource indexes"))
+                .onFailure(err -> System.err.println("DatabaseManager could not create indexes: " + err.getMessage()));
+
         System.out.println("DatabaseManager initialized successfully");
         return Future.succeededFuture();
     }
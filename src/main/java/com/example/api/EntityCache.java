@@ -0,0 +1,160 @@
+package com.example.api;
+
+import io.vertx.core.json.JsonObject;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded segmented-LRU cache with a per-entry TTL for resource documents.
+ * New entries land in a probation segment and are only promoted to the
+ * protected segment on a second hit, so a scan of one-off reads cannot flush
+ * the hot set.
+ *
+ * Not thread-safe: each instance is owned by one verticle and only touched on
+ * its event loop.
+ */
+public class EntityCache {
+
+    private final int maxSize;
+    private final int protectedMaxSize;
+    private final long ttlMillis;
+
+    // access-ordered, eldest entry first
+    private final LinkedHashMap<String, Entry> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Entry> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+    // bumped on every invalidation; loads started under an older epoch are not cached
+    private long epoch;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+
+    public EntityCache(int maxSize, long ttlMillis) {
+        this.maxSize = Math.max(1, maxSize);
+        this.protectedMaxSize = Math.max(1, this.maxSize * 4 / 5);
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Cached document or null on miss
+     */
+    public JsonObject get(String id) {
+        long now = System.currentTimeMillis();
+        Entry entry = protectedSegment.get(id);
+        if (entry != null) {
+            if (entry.expiresAt <= now) {
+                protectedSegment.remove(id);
+                expirations++;
+                misses++;
+                return null;
+            }
+            hits++;
+            return entry.value;
+        }
+
+        entry = probation.remove(id);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (entry.expiresAt <= now) {
+            expirations++;
+            misses++;
+            return null;
+        }
+        promote(id, entry);
+        hits++;
+        return entry.value;
+    }
+
+    /**
+     * Stamp to take before loading from the database; pass it to {@link #put}
+     */
+    public long stamp() {
+        return epoch;
+    }
+
+    /**
+     * Cache a freshly loaded document unless a write invalidated entries since
+     * the load began
+     */
+    public void put(String id, JsonObject value, long stamp) {
+        if (stamp != epoch) {
+            return;
+        }
+        Entry entry = new Entry(value, System.currentTimeMillis() + ttlMillis);
+        if (protectedSegment.containsKey(id)) {
+            protectedSegment.put(id, entry);
+            return;
+        }
+        probation.put(id, entry);
+        evictIfNeeded();
+    }
+
+    /**
+     * Drop an entry after it was written or deleted
+     */
+    public void invalidate(String id) {
+        epoch++;
+        if (probation.remove(id) != null || protectedSegment.remove(id) != null) {
+            invalidations++;
+        }
+    }
+
+    public int size() {
+        return probation.size() + protectedSegment.size();
+    }
+
+    /**
+     * Counters for sizing the cache
+     */
+    public JsonObject stats() {
+        long lookups = hits + misses;
+        return new JsonObject()
+                .put("size", size())
+                .put("maxSize", maxSize)
+                .put("ttlMs", ttlMillis)
+                .put("hits", hits)
+                .put("misses", misses)
+                .put("hitRate", lookups == 0 ? 0.0 : hits / (double) lookups)
+                .put("evictions", evictions)
+                .put("expirations", expirations)
+                .put("invalidations", invalidations);
+    }
+
+    private void promote(String id, Entry entry) {
+        protectedSegment.put(id, entry);
+        if (protectedSegment.size() > protectedMaxSize) {
+            // demote the least recently used protected entry back to probation
+            Iterator<Map.Entry<String, Entry>> it = protectedSegment.entrySet().iterator();
+            Map.Entry<String, Entry> eldest = it.next();
+            it.remove();
+            probation.put(eldest.getKey(), eldest.getValue());
+        }
+        evictIfNeeded();
+    }
+
+    private void evictIfNeeded() {
+        while (size() > maxSize) {
+            LinkedHashMap<String, Entry> victims = probation.isEmpty() ? protectedSegment : probation;
+            Iterator<String> it = victims.keySet().iterator();
+            it.next();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    private static final class Entry {
+        final JsonObject value;
+        final long expiresAt;
+
+        Entry(JsonObject value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.api;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.MongoClient;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DataLoader-style micro-batching of single-document reads. Ids requested
+ * within a short window (or until the batch is full) are fetched with one
+ * {@code {_id: {$in: [...]}}} query and the results handed back to each caller;
+ * ids with no document resolve to null.
+ *
+ * Not thread-safe: owned by one verticle and used on its event loop.
+ */
+public class GetBatcher {
+
+    private final Vertx vertx;
+    private final MongoClient mongo;
+    private final String collection;
+    private final long windowMillis;
+    private final int maxBatchSize;
+
+    private Map<String, List<Promise<JsonObject>>> pending = new LinkedHashMap<>();
+    private long firstQueuedAt;
+    private long timerId = -1;
+
+    private long batches;
+    private long batchedIds;
+    private int largestBatch;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+
+    public GetBatcher(Vertx vertx, MongoClient mongo, String collection, long windowMillis, int maxBatchSize) {
+        this.vertx = vertx;
+        this.mongo = mongo;
+        this.collection = collection;
+        this.windowMillis = Math.max(1, windowMillis);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    /**
+     * Build from verticle config, or null when batching is disabled
+     */
+    public static GetBatcher fromConfig(Vertx vertx, MongoClient mongo, String collection, JsonObject config) {
+        if (!config.getBoolean("getBatchEnabled", false)) {
+            return null;
+        }
+        return new GetBatcher(vertx, mongo, collection,
+                config.getLong("getBatchWindowMs", 2L),
+                config.getInteger("getBatchMaxSize", 100));
+    }
+
+    /**
+     * Queue an id for the next batch; resolves to the document or null
+     */
+    public Future<JsonObject> load(String id) {
+        Promise<JsonObject> promise = Promise.promise();
+        if (pending.isEmpty()) {
+            firstQueuedAt = System.nanoTime();
+            timerId = vertx.setTimer(windowMillis, t -> {
+                timerId = -1;
+                flush();
+            });
+        }
+        pending.computeIfAbsent(id, k -> new ArrayList<>(1)).add(promise);
+        if (pending.size() >= maxBatchSize) {
+            vertx.cancelTimer(timerId);
+            timerId = -1;
+            flush();
+        }
+        return promise.future();
+    }
+
+    private void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<String, List<Promise<JsonObject>>> batch = pending;
+        pending = new LinkedHashMap<>();
+
+        long waited = System.nanoTime() - firstQueuedAt;
+        batches++;
+        batchedIds += batch.size();
+        largestBatch = Math.max(largestBatch, batch.size());
+        totalWaitNanos += waited;
+        maxWaitNanos = Math.max(maxWaitNanos, waited);
+
+        JsonObject query = new JsonObject()
+                .put("_id", new JsonObject().put("$in", new JsonArray(new ArrayList<>(batch.keySet()))));
+        Metrics.getInstance().mongo("find", () -> mongo.find(collection, query))
+                .onSuccess(docs -> {
+                    Map<String, JsonObject> byId = new HashMap<>(docs.size() * 2);
+                    for (JsonObject doc : docs) {
+                        byId.put(doc.getString("_id"), doc);
+                    }
+                    batch.forEach((id, waiters) -> {
+                        JsonObject doc = byId.get(id);
+                        waiters.forEach(p -> p.complete(doc));
+                    });
+                })
+                .onFailure(err -> batch.values().forEach(waiters -> waiters.forEach(p -> p.fail(err))));
+    }
+
+    /**
+     * Batch size and wait time figures for tuning the window
+     */
+    public JsonObject stats() {
+        return new JsonObject()
+                .put("windowMs", windowMillis)
+                .put("maxBatchSize", maxBatchSize)
+                .put("batches", batches)
+                .put("ids", batchedIds)
+                .put("avgBatchSize", batches == 0 ? 0.0 : batchedIds / (double) batches)
+                .put("largestBatch", largestBatch)
+                .put("avgWaitMs", batches == 0 ? 0.0 : totalWaitNanos / 1e6 / batches)
+                .put("maxWaitMs", maxWaitNanos / 1e6);
+    }
+}
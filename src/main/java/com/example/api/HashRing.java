@@ -0,0 +1,77 @@
+package com.example.api;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable consistent-hash ring of cluster nodes. Each node is placed at
+ * virtualNodes points so keys spread evenly and a membership change only
+ * moves the keys next to the points that were added or removed.
+ */
+public final class HashRing {
+
+    private final TreeMap<Long, String> points = new TreeMap<>();
+    private final int nodeCount;
+
+    public HashRing(Collection<String> nodes, int virtualNodes) {
+        for (String node : nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                points.put(hash(node + "#" + i), node);
+            }
+        }
+        this.nodeCount = nodes.size();
+    }
+
+    public boolean isEmpty() {
+        return points.isEmpty();
+    }
+
+    /**
+     * Up to count distinct nodes owning the key, primary first
+     */
+    public List<String> owners(String key, int count) {
+        int wanted = Math.min(count, nodeCount);
+        List<String> owners = new ArrayList<>(wanted);
+        if (wanted == 0) {
+            return owners;
+        }
+        long h = hash(key);
+        for (Map.Entry<Long, String> point : points.tailMap(h, true).entrySet()) {
+            if (collect(owners, point.getValue(), wanted)) {
+                return owners;
+            }
+        }
+        for (Map.Entry<Long, String> point : points.headMap(h, false).entrySet()) {
+            if (collect(owners, point.getValue(), wanted)) {
+                return owners;
+            }
+        }
+        return owners;
+    }
+
+    private static boolean collect(List<String> owners, String node, int wanted) {
+        if (!owners.contains(node)) {
+            owners.add(node);
+        }
+        return owners.size() == wanted;
+    }
+
+    /**
+     * FNV-1a over UTF-8, finished with a SplitMix64 mix so that similar keys
+     * land far apart
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+}
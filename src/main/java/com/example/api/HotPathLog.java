@@ -0,0 +1,246 @@
+package com.example.api;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+/**
+ * Logging for per-request paths (event bus consumers, HTTP handlers).
+ *
+ * A log call first checks the JVM-wide level and then the path's sampling
+ * rate (1 in N calls is kept), using only primitive fields and fixed-arity
+ * arguments, so a suppressed call allocates nothing. Kept calls are queued
+ * with their unformatted arguments and written to SLF4J by a single daemon
+ * thread; the event loop never formats a message or waits for stdout. When
+ * the queue is full the event is dropped and counted.
+ *
+ * Config (JVM-wide, applied by the first verticle to call configure):
+ * - logLevel: off, error, warn, info, debug or trace (default info)
+ * - logSampling: path name to N, keep 1 in N calls (default 1 for every path)
+ * - logQueueSize: events waiting to be written (default 8192)
+ *
+ * Level and sampling can be changed at runtime with {@link #update}, which
+ * {@link #listen} also applies when published on {@link #CONTROL_ADDRESS}.
+ */
+public final class HotPathLog {
+
+    public static final String CONTROL_ADDRESS = "admin.log";
+
+    private static final ConcurrentHashMap<String, Path> paths = new ConcurrentHashMap<>();
+    private static final AtomicBoolean configured = new AtomicBoolean();
+    private static final AtomicBoolean listening = new AtomicBoolean();
+    private static final AtomicLong dropped = new AtomicLong();
+
+    // Lower is more severe; a call is kept when its level is <= threshold
+    private static volatile int threshold = Level.INFO.ordinal();
+    private static volatile BlockingQueue<Event> queue = new ArrayBlockingQueue<>(8192);
+    private static Thread writer;
+
+    private HotPathLog() {
+    }
+
+    /**
+     * Logging handle for a path; keep it in a static final field
+     */
+    public static Path path(String name) {
+        return paths.computeIfAbsent(name, Path::new);
+    }
+
+    /**
+     * Apply the startup config once per JVM
+     */
+    public static void configure(JsonObject config) {
+        if (!configured.compareAndSet(false, true)) {
+            return;
+        }
+        if (writer == null) {
+            queue = new ArrayBlockingQueue<>(Math.max(16, config.getInteger("logQueueSize", 8192)));
+        }
+        update(config.getString("logLevel"), config.getJsonObject("logSampling"));
+    }
+
+    /**
+     * Change the level and/or sampling rates; null leaves a setting unchanged
+     *
+     * @throws IllegalArgumentException for an unknown level or a rate below 1
+     */
+    public static void update(String level, JsonObject sampling) {
+        int newThreshold = level == null ? threshold : parseLevel(level);
+        if (sampling != null) {
+            for (String name : sampling.fieldNames()) {
+                Object rate = sampling.getValue(name);
+                if (!(rate instanceof Number) || ((Number) rate).intValue() < 1) {
+                    throw new IllegalArgumentException("Sampling rate for '" + name + "' must be a number >= 1");
+                }
+            }
+            sampling.forEach(e -> path(e.getKey()).every = ((Number) e.getValue()).intValue());
+        }
+        threshold = newThreshold;
+    }
+
+    /**
+     * Apply updates published on {@link #CONTROL_ADDRESS}, once per JVM
+     */
+    public static void listen(Vertx vertx) {
+        if (!listening.compareAndSet(false, true)) {
+            return;
+        }
+        vertx.eventBus().<JsonObject>consumer(CONTROL_ADDRESS, msg -> {
+            try {
+                update(msg.body().getString("level"), msg.body().getJsonObject("sampling"));
+            } catch (IllegalArgumentException e) {
+                LoggerFactory.getLogger(HotPathLog.class).warn("Ignoring log update: {}", e.getMessage());
+            }
+        });
+    }
+
+    private static int parseLevel(String level) {
+        if ("off".equalsIgnoreCase(level)) {
+            return -1;
+        }
+        try {
+            return Level.valueOf(level.toUpperCase(Locale.ROOT)).ordinal();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown log level '" + level + "'");
+        }
+    }
+
+    private static String levelName() {
+        return threshold < 0 ? "off" : Level.values()[threshold].name().toLowerCase(Locale.ROOT);
+    }
+
+    private static void enqueue(Event event) {
+        startWriter();
+        if (!queue.offer(event)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private static void startWriter() {
+        if (writer != null) {
+            return;
+        }
+        synchronized (HotPathLog.class) {
+            if (writer == null) {
+                Thread thread = new Thread(HotPathLog::drain, "hot-path-log");
+                thread.setDaemon(true);
+                thread.start();
+                writer = thread;
+            }
+        }
+    }
+
+    private static void drain() {
+        while (true) {
+            try {
+                queue.take().write();
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                // A failing toString() of an argument must not stop the writer
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    public static JsonObject stats() {
+        JsonObject sampling = new JsonObject();
+        paths.forEach((name, path) -> sampling.put(name, new JsonObject()
+                .put("every", path.every)
+                .put("sampledCalls", path.calls.get())));
+        return new JsonObject()
+                .put("level", levelName())
+                .put("queued", queue.size())
+                .put("dropped", dropped.get())
+                .put("paths", sampling);
+    }
+
+    /**
+     * A named request path with its own logger and sampling rate
+     */
+    public static final class Path {
+        private final String name;
+        private final Logger logger;
+        private final AtomicLong calls = new AtomicLong();
+        private volatile int every = 1;
+
+        private Path(String name) {
+            this.name = name;
+            this.logger = LoggerFactory.getLogger("com.example.api.path." + name);
+        }
+
+        /**
+         * Whether a call at this level would currently be considered; does not
+         * consume a sample
+         */
+        public boolean isEnabled(Level level) {
+            return level.ordinal() <= threshold;
+        }
+
+        private boolean keep(Level level) {
+            if (level.ordinal() > threshold) {
+                return false;
+            }
+            int rate = every;
+            return rate <= 1 || calls.getAndIncrement() % rate == 0;
+        }
+
+        public void debug(String format, Object arg1, Object arg2) {
+            if (keep(Level.DEBUG)) {
+                enqueue(new Event(this, Level.DEBUG, format, arg1, arg2, null));
+            }
+        }
+
+        public void debug(String format, Object arg1, Object arg2, Object arg3) {
+            if (keep(Level.DEBUG)) {
+                enqueue(new Event(this, Level.DEBUG, format, arg1, arg2, arg3));
+            }
+        }
+
+        public void info(String format, Object arg1, Object arg2) {
+            if (keep(Level.INFO)) {
+                enqueue(new Event(this, Level.INFO, format, arg1, arg2, null));
+            }
+        }
+
+        public void warn(String format, Object arg1, Object arg2) {
+            if (keep(Level.WARN)) {
+                enqueue(new Event(this, Level.WARN, format, arg1, arg2, null));
+            }
+        }
+
+        public void warn(String format, Object arg1, Object arg2, Object arg3) {
+            if (keep(Level.WARN)) {
+                enqueue(new Event(this, Level.WARN, format, arg1, arg2, arg3));
+            }
+        }
+    }
+
+    /**
+     * A kept call; the message is only formatted by the writer thread
+     */
+    private record Event(Path path, Level level, String format, Object arg1, Object arg2, Object arg3) {
+        void write() {
+            var builder = path.logger.makeLoggingEventBuilder(level)
+                    .addKeyValue("path", path.name)
+                    .setMessage(format)
+                    .addArgument(arg1)
+                    .addArgument(arg2);
+            if (arg3 != null) {
+                builder.addArgument(arg3);
+            }
+            if (path.every > 1) {
+                builder.addKeyValue("sampled", "1/" + path.every);
+            }
+            builder.log();
+        }
+    }
+}
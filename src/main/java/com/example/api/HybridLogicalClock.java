@@ -0,0 +1,91 @@
+package com.example.api;
+
+import java.time.Instant;
+import java.util.function.LongSupplier;
+
+/**
+ * Hybrid logical clock. A timestamp packs wall-clock milliseconds in the high
+ * 48 bits and a logical counter in the low 16, so timestamps stay close to
+ * real time yet never go backwards and always order after every timestamp
+ * this node has seen from others.
+ *
+ * A remote timestamp more than maxDriftMillis ahead of the local wall clock
+ * is refused: following it would drag every later local timestamp into the
+ * future, and a far-future version would win every last-writer-wins merge.
+ */
+public final class HybridLogicalClock {
+
+    private static final int LOGICAL_BITS = 16;
+
+    public static final long DEFAULT_MAX_DRIFT_MILLIS = 60_000;
+
+    private final LongSupplier wallClock;
+    private volatile long maxDriftMillis = DEFAULT_MAX_DRIFT_MILLIS;
+    private long last;
+
+    public HybridLogicalClock() {
+        this(System::currentTimeMillis);
+    }
+
+    HybridLogicalClock(LongSupplier wallClock) {
+        this.wallClock = wallClock;
+    }
+
+    public void setMaxDriftMillis(long maxDriftMillis) {
+        this.maxDriftMillis = maxDriftMillis;
+    }
+
+    /**
+     * Timestamp for a local event
+     */
+    public synchronized long now() {
+        last = Math.max(last + 1, fromMillis(wallClock.getAsLong()));
+        return last;
+    }
+
+    /**
+     * Whether a remote timestamp is at most maxDriftMillis ahead of our wall
+     * clock
+     */
+    public boolean accepts(long remote) {
+        return physicalMillis(remote) <= wallClock.getAsLong() + maxDriftMillis;
+    }
+
+    /**
+     * Advance past a timestamp received from another node. Throws
+     * IllegalArgumentException, leaving the clock unchanged, if the timestamp
+     * is too far ahead ({@link #accepts}).
+     */
+    public synchronized long update(long remote) {
+        long wall = wallClock.getAsLong();
+        if (physicalMillis(remote) > wall + maxDriftMillis) {
+            throw new IllegalArgumentException("Timestamp " + toIso(remote) + " is more than " + maxDriftMillis
+                    + " ms ahead of the local clock");
+        }
+        last = Math.max(Math.max(last, remote) + 1, fromMillis(wall));
+        return last;
+    }
+
+    /**
+     * Advance past a timestamp this node issued before, without the drift
+     * check
+     */
+    synchronized void observe(long timestamp) {
+        last = Math.max(last, timestamp);
+    }
+
+    public static long fromMillis(long millis) {
+        return millis << LOGICAL_BITS;
+    }
+
+    public static long physicalMillis(long timestamp) {
+        return timestamp >>> LOGICAL_BITS;
+    }
+
+    /**
+     * ISO-8601 form of the physical part
+     */
+    public static String toIso(long timestamp) {
+        return Instant.ofEpochMilli(physicalMillis(timestamp)).toString();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.api;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.EncodeException;
+import io.vertx.core.json.jackson.JacksonCodec;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Encodes response bodies straight into a pre-sized Buffer, without building an
+ * intermediate String first
+ */
+public final class JsonBufferEncoder {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private static final int MIN_CAPACITY = 256;
+    private static final int MAX_CAPACITY = 64 * 1024;
+
+    // Moving average of recent payload sizes, used to pre-size the next buffer.
+    // Races between event loops only skew the hint, never the output.
+    private static volatile int sizeHint = MIN_CAPACITY;
+
+    private JsonBufferEncoder() {
+    }
+
+    /**
+     * Encode a JSON value (JsonObject, JsonArray, Map, List or scalar) as compact
+     * or pretty-printed JSON
+     */
+    public static Buffer encode(Object data, boolean pretty) {
+        Buffer buffer = Buffer.buffer(sizeHint);
+        try (JsonGenerator generator = FACTORY.createGenerator(new BufferOutputStream(buffer))) {
+            if (pretty) {
+                generator.useDefaultPrettyPrinter();
+            }
+            JacksonCodec.encodeJson(data, generator);
+        } catch (IOException e) {
+            throw new EncodeException(e.getMessage(), e);
+        }
+        recordSize(buffer.length());
+        return buffer;
+    }
+
+    private static void recordSize(int length) {
+        int hint = sizeHint + ((length - sizeHint) >> 3);
+        sizeHint = Math.max(MIN_CAPACITY, Math.min(MAX_CAPACITY, hint));
+    }
+
+    /**
+     * OutputStream view over a Buffer; Jackson already batches writes through its
+     * own recycled byte buffer, so this only sees chunked appends
+     */
+    private static final class BufferOutputStream extends OutputStream {
+        private final Buffer buffer;
+
+        BufferOutputStream(Buffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(int b) {
+            buffer.appendByte((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            buffer.appendBytes(b, off, len);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.api;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size log-linear latency histogram in the style of HdrHistogram.
+ * Durations (nanoseconds) up to 2^40 (about 18 minutes) are counted in 16
+ * linear sub-buckets per power of two, so a bucket's bounds are within 6.25%
+ * of any value in it. Recording is two atomic adds and never allocates;
+ * readers see a slightly moving but never torn snapshot.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong sumNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        long value = Math.max(0, Math.min(nanos, MAX_VALUE));
+        counts.incrementAndGet(indexOf(value));
+        sumNanos.addAndGet(value);
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    /**
+     * Exclusive upper bound of a bucket, in nanoseconds
+     */
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index + 1;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + index % SUB_BUCKETS + 1) << shift;
+    }
+
+    public long sumNanos() {
+        return sumNanos.get();
+    }
+
+    /**
+     * Cumulative counts of values below each bound (ascending nanoseconds);
+     * the extra last element is the total count
+     */
+    public long[] cumulativeCounts(long[] bounds) {
+        long[] cumulative = new long[bounds.length + 1];
+        int bound = 0;
+        long running = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            long upper = upperBound(i);
+            while (bound < bounds.length && upper > bounds[bound]) {
+                cumulative[bound++] = running;
+            }
+            running += counts.get(i);
+        }
+        while (bound < bounds.length) {
+            cumulative[bound++] = running;
+        }
+        cumulative[bounds.length] = running;
+        return cumulative;
+    }
+
+    /**
+     * Upper bound (nanoseconds) of the bucket holding the given percentile, or
+     * 0 when nothing was recorded
+     */
+    public long percentile(double percentile) {
+        return percentile(snapshot(), percentile);
+    }
+
+    /**
+     * Copy of the bucket counts; the difference of two snapshots is the
+     * histogram of the values recorded in between
+     */
+    public long[] snapshot() {
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Percentile of a snapshot (or of a difference of snapshots)
+     */
+    public static long percentile(long[] counts, double percentile) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        // At least the first value, so p0 is the smallest recorded bucket rather than bucket 0
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return MAX_VALUE;
+    }
+}
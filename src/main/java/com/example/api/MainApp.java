@@ -1,13 +1,30 @@
 package com.example.api;
 
+import io.vertx.core.DeploymentOptions;
 import io.vertx.core.Vertx;
 import io.vertx.core.VertxOptions;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.spi.cluster.zookeeper.ZookeeperClusterManager;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 public class MainApp {
+
   public static void main(String[] args) {
-    System.out.println("=== Starting Services 1, 2, and 3 (ports 8888, 8889, 8890) ===");
+    JsonObject config;
+    try {
+      config = loadConfig(args, "services.json");
+    } catch (IOException | RuntimeException e) {
+      System.err.println(" Failed to load the service configuration: " + e.getMessage());
+      return;
+    }
+    System.out.println("=== Starting services " + config.getJsonArray("services", new JsonArray()).encode() + " ===");
 
     // Configure ZooKeeper cluster manager
     JsonObject zkConfig = new JsonObject()
@@ -24,6 +41,9 @@ public class MainApp {
 
     System.out.println("Connecting to ZooKeeper cluster...");
 
+    // Context locals have to be registered before Vert.x starts
+    RequestTiming.init();
+
     // Create clustered Vert.x instance
     Vertx.builder()
         .with(options)
@@ -34,48 +54,21 @@ public class MainApp {
           System.out.println(" Event Bus is now clustered and ready for cross-node communication");
           System.out.println("Node ID: " + vertx.getOrCreateContext().deploymentID());
 
-          // Deploy MasterCrudVerticle first so CRUD Event Bus addresses are available
-          vertx.deployVerticle(new MasterCrudVerticle())
-              .onSuccess(masterId -> {
-                System.out.println("MasterCrudVerticle deployed with ID: " + masterId);
-                System.out.println(" Master CRUD service ready - Event Bus addresses registered");
+          // Owner routing for resource.store / resource.lookup follows ZooKeeper membership
+          ClusterMembership.getInstance().attach(vertx, clusterManager, new JsonObject());
 
-                // Deploy MainVerticle (8888)
-                vertx.deployVerticle(new MainVerticle())
-                    .onSuccess(deploymentId -> {
-                      System.out.println("MainVerticle deployed successfully with ID: " + deploymentId);
-                      System.out.println(" Service 1 ready - HTTP server starting on port 8888");
-                    })
-                    .onFailure(err -> {
-                      System.err.println(" MainVerticle deployment failed: " + err.getMessage());
-                      err.printStackTrace();
-                    });
+          // Deploy the MasterCrudVerticles for this node's partitions first so CRUD Event Bus addresses are available
+          vertx.deployVerticle(new PartitionManager(clusterManager))
+              .onSuccess(managerId -> {
+                System.out.println("PartitionManager deployed with ID: " + managerId);
+                System.out.println(" Master CRUD partitions ready - Event Bus addresses registered");
 
-                // Deploy MainVerticle2 (8889)
-                vertx.deployVerticle(new MainVerticle2())
-                    .onSuccess(deploymentId -> {
-                      System.out.println("MainVerticle2 deployed successfully with ID: " + deploymentId);
-                      System.out.println(" Service 2 ready - HTTP server starting on port 8889");
-                    })
-                    .onFailure(err -> {
-                      System.err.println(" MainVerticle2 deployment failed: " + err.getMessage());
-                      err.printStackTrace();
-                    });
-
-                // Deploy MainVerticle3 (8890)
-                vertx.deployVerticle(new MainVerticle3())
-                    .onSuccess(deploymentId -> {
-                      System.out.println("MainVerticle3 deployed successfully with ID: " + deploymentId);
-                      System.out.println(" Service 3 ready - HTTP server starting on port 8890");
-                    })
-                    .onFailure(err -> {
-                      System.err.println(" MainVerticle3 deployment failed: " + err.getMessage());
-                      err.printStackTrace();
-                    });
+                // One MainVerticle deployment per configured service
+                httpDeployments(config, options).forEach(deployment -> deployHttp(vertx, deployment));
                 System.out.println("=== All services startup complete ===\n");
               })
               .onFailure(err -> {
-                System.err.println(" MasterCrudVerticle deployment failed: " + err.getMessage());
+                System.err.println(" PartitionManager deployment failed: " + err.getMessage());
                 err.printStackTrace();
               });
         })
@@ -85,4 +78,64 @@ public class MainApp {
           err.printStackTrace();
         });
   }
+
+  /**
+   * Service configuration: the JSON file named by the first argument, or the
+   * given classpath resource when there is none. Its "services" array lists
+   * the HTTP services to deploy, see {@link #httpDeployments}.
+   */
+  static JsonObject loadConfig(String[] args, String resource) throws IOException {
+    if (args.length > 0) {
+      return new JsonObject(Files.readString(Path.of(args[0]), StandardCharsets.UTF_8));
+    }
+    try (InputStream in = MainApp.class.getClassLoader().getResourceAsStream(resource)) {
+      if (in == null) {
+        throw new IOException("No " + resource + " on the classpath");
+      }
+      return new JsonObject(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+    }
+  }
+
+  /**
+   * One MainVerticle deployment per entry of the config's "services" array.
+   * An entry needs a port; serviceName defaults to "Service<n>", instances to
+   * one per event loop (also when not positive), and the entry's other fields
+   * are passed on as MainVerticle config.
+   */
+  static List<DeploymentOptions> httpDeployments(JsonObject config, VertxOptions options) {
+    JsonArray services = config.getJsonArray("services", new JsonArray());
+    List<DeploymentOptions> deployments = new ArrayList<>(services.size());
+    for (int i = 0; i < services.size(); i++) {
+      JsonObject service = services.getJsonObject(i).copy();
+      if (service.getInteger("port") == null) {
+        throw new IllegalArgumentException("Service " + (i + 1) + " has no port");
+      }
+      Integer instances = service.getInteger("instances");
+      service.remove("instances");
+      if (instances == null || instances < 1) {
+        instances = options.getEventLoopPoolSize();
+      }
+      if (service.getString("serviceName") == null) {
+        service.put("serviceName", "Service" + (i + 1));
+      }
+      deployments.add(new DeploymentOptions().setInstances(instances).setConfig(service));
+    }
+    return deployments;
+  }
+
+  static void deployHttp(Vertx vertx, DeploymentOptions deploymentOptions) {
+    String serviceName = deploymentOptions.getConfig().getString("serviceName");
+    int port = deploymentOptions.getConfig().getInteger("port");
+    int instances = deploymentOptions.getInstances();
+    vertx.deployVerticle(MainVerticle::new, deploymentOptions)
+        .onSuccess(deploymentId -> {
+          System.out.println("MainVerticle (" + serviceName + ") deployed successfully with ID: " + deploymentId);
+          System.out.println(" " + serviceName + " ready - HTTP server starting on port " + port + " with "
+              + instances + " instances");
+        })
+        .onFailure(err -> {
+          System.err.println(" MainVerticle (" + serviceName + ") deployment failed: " + err.getMessage());
+          err.printStackTrace();
+        });
+  }
 }
@@ -4,10 +4,18 @@ import io.vertx.core.Vertx;
 import io.vertx.core.VertxOptions;
 import io.vertx.core.json.JsonObject;
 import io.vertx.spi.cluster.zookeeper.ZookeeperClusterManager;
+import java.io.IOException;
 
 public class MainApp2 {
   public static void main(String[] args) {
-    System.out.println("=== Starting Service 2 (MainVerticle2 on port 8889) ===");
+    JsonObject config;
+    try {
+      config = MainApp.loadConfig(args, "service2.json");
+    } catch (IOException | RuntimeException e) {
+      System.err.println(" Failed to load the service configuration: " + e.getMessage());
+      return;
+    }
+    System.out.println("=== Starting Service 2 (MainVerticle on port 8889) ===");
 
     // Configure ZooKeeper cluster manager
     JsonObject zkConfig = new JsonObject()
@@ -24,6 +32,9 @@ public class MainApp2 {
 
     System.out.println("Connecting to ZooKeeper cluster...");
 
+    // Context locals have to be registered before Vert.x starts
+    RequestTiming.init();
+
     // Create clustered Vert.x instance
     Vertx.builder()
         .with(options)
@@ -34,18 +45,12 @@ public class MainApp2 {
           System.out.println(" Event Bus is now clustered and ready for cross-node communication");
           System.out.println("Node ID: " + vertx.getOrCreateContext().deploymentID());
 
-          // Deploy MainVerticle2
-          vertx.deployVerticle(new MainVerticle2())
-              .onSuccess(deploymentId -> {
-                System.out.println(" MainVerticle2 deployed successfully with ID: " + deploymentId);
-                System.out.println(" Service 2 ready - HTTP server starting on port 8889");
-                System.out.println(" Event Bus consumer 'resource.lookup' registered and ready");
-                System.out.println("=== Service 2 startup complete ===\n");
-              })
-              .onFailure(err -> {
-                System.err.println(" MainVerticle2 deployment failed: " + err.getMessage());
-                err.printStackTrace();
-              });
+          // Owner routing for resource.store / resource.lookup follows ZooKeeper membership
+          ClusterMembership.getInstance().attach(vertx, clusterManager, new JsonObject());
+
+          // Deploy MainVerticle as configured (port 8889 by default)
+          MainApp.httpDeployments(config, options).forEach(deployment -> MainApp.deployHttp(vertx, deployment));
+          System.out.println("=== Service 2 startup complete ===\n");
         })
         .onFailure(err -> {
           System.err.println(" Failed to create clustered Vert.x instance: " + err.getMessage());
@@ -1,43 +1,77 @@
 package com.example.api;
 
 import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Handler;
 import io.vertx.core.Promise;
+import io.vertx.core.eventbus.Message;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.handler.BodyHandler;
 import io.vertx.ext.web.handler.StaticHandler;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.List;
-import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * HTTP verticle. Deploy it with DeploymentOptions.setInstances(n) so that
+ * connections on the port are spread over n event loops.
+ *
+ * Config:
+ * - port: HTTP port (default 8888)
+ * - serviceName: name used in log lines (default "Service1")
+ * - logLevel, logSampling, logQueueSize: request-path logging, see {@link HotPathLog}
+ * - timingSampleRate: fraction of requests with a Server-Timing breakdown, see {@link RequestTiming}
+ * - admission*: adaptive in-flight limits per instance and per crud.* address, see {@link AdaptiveLimiter}
+ */
 public class MainVerticle extends AbstractVerticle {
 
-  // Local in-memory store for Event Bus communication - stores List<JsonObject>
-  // (each with value and timestamp)
-  private static final ConcurrentHashMap<String, List<JsonObject>> localStore = new ConcurrentHashMap<>();
+  private static final HotPathLog.Path LOOKUP_LOG = HotPathLog.path("resource.lookup");
+  private static final HotPathLog.Path STORE_LOG = HotPathLog.path("resource.store");
+  private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+  // Local versioned store for Event Bus communication, shared by all instances in this JVM
+  private final VersionStore versionStore = VersionStore.getInstance();
+
+  // Encoded GET responses for hot ids, shared by all instances in this JVM; null when disabled
+  private NearCache nearCache;
+
+  private int port;
+  private String logPrefix;
 
   @Override
   public void start(Promise<Void> startPromise) {
+    CrudMessageCodec.register(vertx);
+    HotPathLog.configure(config());
+    HotPathLog.listen(vertx);
+    AdaptiveLimiter.configure(config());
+    CrudClient.getInstance().configure(config());
+    port = config().getInteger("port", 8888);
+    logPrefix = "[" + config().getString("serviceName", "Service1") + ":" + port + "]";
 
-    // Initialize DatabaseManager
-    DatabaseManager.getInstance().initialize(vertx)
+    // Initialize DatabaseManager (and the version store, which may recover from disk)
+    versionStore.configure(vertx, config())
+        .compose(v -> DatabaseManager.getInstance().initialize(vertx))
         .onSuccess(v -> {
+          // Last-writer-wins replication of the version store to the other nodes, when enabled
+          VersionReplicator.start(vertx, config());
+
+          // Near-cache of encoded GET responses, dropped when the master publishes a write
+          nearCache = NearCache.start(vertx, config());
+
           // Create and configure router
           Router router = createRouter();
 
           // Start HTTP server
           vertx.createHttpServer()
               .requestHandler(router)
-              .listen(8888)
+              .listen(port)
               .onSuccess(http -> {
-                System.out.println("HTTP server running on port 8888");
+                System.out.println("HTTP server running on port " + port);
 
                 // Wait 3 seconds before registering Event Bus consumers to allow cluster state
                 // to propagate
                 vertx.setTimer(3000, id -> {
                   registerEventBusConsumer();
-                  System.out.println("[Service1:8888] Delayed Event Bus consumer registration complete (3s delay)");
+                  System.out.println(logPrefix + " Delayed Event Bus consumer registration complete (3s delay)");
                   startPromise.complete();
                 });
               })
@@ -51,86 +85,123 @@ public class MainVerticle extends AbstractVerticle {
    */
   private void registerEventBusConsumer() {
     // Consumer for resource lookup requests
-    vertx.eventBus().consumer("resource.lookup", message -> {
+    consume("resource.lookup", message -> {
       String resourceId = message.body().toString();
-      List<JsonObject> versions = localStore.get(resourceId);
-
-      System.out.println("[Service1:8888] Received clustered Event Bus lookup request for ID: " + resourceId);
-
-      if (versions != null && !versions.isEmpty()) {
-        // Find the latest version by timestamp
-        JsonObject latest = versions.stream()
-            .max(Comparator.comparing(obj -> obj.getString("timestamp")))
-            .orElse(null);
-        if (latest != null) {
-          String value = latest.getString("value");
-          String timestamp = latest.getString("timestamp");
-          System.out
-              .println("[Service1:8888] Found latest resource locally: " + value + " (stored at: " + timestamp + ")");
-          JsonObject response = new JsonObject()
-              .put("value", value)
-              .put("timestamp", timestamp)
-              .put("port", 8888);
-          message.reply(response);
-          return;
-        }
+
+      LOOKUP_LOG.debug("{} Received clustered Event Bus lookup request for ID: {}", logPrefix, resourceId);
+
+      VersionStore.Version latest = versionStore.latest(resourceId);
+      if (latest != null) {
+        String timestamp = latest.timestamp();
+        LOOKUP_LOG.debug("{} Found latest resource locally: {} (stored at: {})", logPrefix, latest.value, timestamp);
+        JsonObject response = new JsonObject()
+            .put("value", latest.value)
+            .put("timestamp", timestamp)
+            .put("hlc", latest.hlc)
+            .put("port", port);
+        message.reply(response);
+        return;
       }
-      System.out.println("[Service1:8888] Resource not found in local store");
+      LOOKUP_LOG.debug("{} Resource not found in local store: {}", logPrefix, resourceId);
       message.fail(404, "Resource not found");
     });
 
+    // Consumer for resource history requests: {id, limit} -> newest versions first
+    consume("resource.history", message -> {
+      JsonObject historyRequest = (JsonObject) message.body();
+      String resourceId = historyRequest.getString("id");
+      int limit = Math.max(1, historyRequest.getInteger("limit", 100));
+
+      List<VersionStore.Version> versions = versionStore.history(resourceId, limit);
+      if (versions.isEmpty()) {
+        message.fail(404, "Resource not found");
+        return;
+      }
+      JsonObject response = new JsonObject()
+          .put("id", resourceId)
+          .put("versions", VersionStore.toJson(versions))
+          .put("port", port);
+      message.reply(response);
+    });
+
     // Consumer for resource store requests
-    vertx.eventBus().consumer("resource.store", message -> {
+    consume("resource.store", message -> {
       JsonObject storeRequest = (JsonObject) message.body();
       String resourceId = storeRequest.getString("id");
       String value = storeRequest.getString("value");
 
-      System.out.println("[Service1:8888] Received clustered Event Bus store request for ID: " + resourceId);
-
-      // Create timestamped data object
-      String currentTimestamp = java.time.Instant.now().toString();
-      JsonObject dataWithTimestamp = new JsonObject()
-          .put("value", value)
-          .put("timestamp", currentTimestamp);
+      STORE_LOG.debug("{} Received clustered Event Bus store request for ID: {}", logPrefix, resourceId);
 
-      // Append new version to the list
-      localStore.compute(resourceId, (k, v) -> {
-        if (v == null)
-          v = new ArrayList<>();
-        v.add(dataWithTimestamp);
-        return v;
-      });
-      System.out
-          .println("[Service1:8888] Stored new version locally: " + value + " (timestamp: " + currentTimestamp + ")");
+      // Append new version; older ones beyond the retention limit are dropped
+      versionStore.append(resourceId, value)
+          .onSuccess(version -> {
+            String timestamp = version.timestamp();
+            STORE_LOG.debug("{} Stored new version locally: {} (timestamp: {})", logPrefix, value, timestamp);
 
-      JsonObject response = new JsonObject()
-          .put("stored", resourceId)
-          .put("timestamp", currentTimestamp)
-          .put("port", 8888);
-      message.reply(response);
+            JsonObject response = new JsonObject()
+                .put("stored", resourceId)
+                .put("timestamp", timestamp)
+                .put("port", port);
+            message.reply(response);
+          })
+          .onFailure(err -> {
+            // mmap storage: oversized version or a segment that could not be mapped
+            STORE_LOG.warn("{} Store of {} failed: {}", logPrefix, resourceId, err.getMessage());
+            message.fail(500, "Store failed: " + err.getMessage());
+          });
     });
 
     // Add a small delay to ensure cluster is fully ready before considering
     // consumer ready
     vertx.setTimer(1000, id -> {
       System.out.println(
-          "[Service1:8888] Event Bus consumers 'resource.lookup' and 'resource.store' registered for clustering");
-      System.out.println("[Service1:8888] Event Bus consumers are ready to handle requests");
+          logPrefix + " Event Bus consumers 'resource.lookup', 'resource.history' and 'resource.store' registered for clustering");
+      System.out.println(logPrefix + " Event Bus consumers are ready to handle requests");
     });
   }
 
+  /**
+   * Consume on the shared address and, when clustered, on this node's own
+   * address that owner-routed requests (see {@link ClusterMembership}) use
+   */
+  private void consume(String address, Handler<Message<Object>> handler) {
+    vertx.eventBus().consumer(address, handler);
+    String nodeId = ClusterMembership.getInstance().nodeId();
+    if (nodeId != null) {
+      vertx.eventBus().consumer(ClusterMembership.address(address, nodeId), handler);
+    }
+  }
+
   /**
    * Create router and configure routes
    */
   private Router createRouter() {
     Router router = Router.router(vertx);
 
-    // Add body handler for POST/PUT/PATCH requests
-    router.route().handler(BodyHandler.create());
+    // Buffered, size-limited bodies only for routes that need a whole JSON document;
+    // the NDJSON import reads its request stream directly
+    BodyHandler bodyHandler = BodyHandler.create().setBodyLimit(config().getLong("maxBodyBytes", 1024L * 1024));
+    BodyHandler bulkBodyHandler = BodyHandler.create()
+        .setBodyLimit(config().getLong("maxBulkBodyBytes", 16L * 1024 * 1024));
+
+    // Latency per route, first so that it covers every other handler
+    router.route().handler(Metrics.getInstance().httpHandler());
+
+    // X-Request-Id on every response; Server-Timing breakdown for sampled requests
+    router.route().handler(RequestTiming.handler(config()));
+
+    // Adaptive in-flight limit for this instance; overflow is rejected with 503 + Retry-After
+    if (AdaptiveLimiter.isEnabled()) {
+      AdaptiveLimiter limiter = AdaptiveLimiter.create("http", port + "#" + INSTANCES.getAndIncrement());
+      router.route().handler(AdmissionControl.handler(limiter));
+    }
 
     // Middleware: Add database manager to context (optional, for consistency)
     router.route().handler(ctx -> {
       ctx.put("databaseManager", DatabaseManager.getInstance());
+      if (nearCache != null) {
+        ctx.put("nearCache", nearCache);
+      }
       ctx.next();
     });
 
@@ -138,12 +209,30 @@ public class MainVerticle extends AbstractVerticle {
     router.get("/api/v1/hello").handler(CrudHandler::handleHello);
 
     // CRUD endpoints via Event Bus master verticle
-    router.post("/api/v1/resources").handler(com.example.api.handlers.CreateResourceHandler::handle);
+    router.post("/api/v1/resources").handler(bodyHandler).handler(com.example.api.handlers.CreateResourceHandler::handle);
+    router.postWithRegex("/api/v1/resources:bulk").handler(bulkBodyHandler).handler(com.example.api.handlers.BulkResourcesHandler::handle);
+    router.post("/api/v1/resources/import").handler(com.example.api.handlers.ImportResourcesHandler::handle);
+    router.get("/api/v1/resources/export").handler(com.example.api.handlers.ExportResourcesHandler::handle);
     router.get("/api/v1/resources/:id").handler(com.example.api.handlers.GetResourceHandler::handle);
     router.get("/api/v1/resources").handler(com.example.api.handlers.ListResourcesHandler::handle);
-    router.put("/api/v1/resources/:id").handler(com.example.api.handlers.UpdateResourceHandler::handle);
+    router.put("/api/v1/resources/:id").handler(bodyHandler).handler(com.example.api.handlers.UpdateResourceHandler::handle);
     router.delete("/api/v1/resources/:id").handler(com.example.api.handlers.DeleteResourceHandler::handle);
-    router.patch("/api/v1/resources/:id").handler(com.example.api.handlers.PatchResourceHandler::handle);
+    router.patch("/api/v1/resources/:id").handler(bodyHandler).handler(com.example.api.handlers.PatchResourceHandler::handle);
+
+    // Cache statistics from the master CRUD verticle
+    router.get("/api/v1/admin/stats").handler(com.example.api.handlers.StatsHandler::handle);
+
+    // Query plan of a list filter and sort (which index it uses)
+    router.get("/api/v1/admin/explain").handler(com.example.api.handlers.ExplainQueryHandler::handle);
+
+    // Prometheus scrape endpoint: HTTP, event bus and Mongo latency histograms
+    router.get("/metrics").handler(ctx -> ctx.response()
+        .putHeader("content-type", "text/plain; version=0.0.4; charset=utf-8")
+        .end(Metrics.getInstance().prometheus()));
+
+    // Request-path log level and sampling, applied cluster-wide
+    router.get("/api/v1/admin/log").handler(com.example.api.handlers.LogLevelHandler::get);
+    router.put("/api/v1/admin/log").handler(bodyHandler).handler(com.example.api.handlers.LogLevelHandler::update);
 
     // Swagger UI routes
     router.route("/docs/*").handler(StaticHandler.create("webroot/swagger-ui"));
@@ -161,10 +250,10 @@ public class MainVerticle extends AbstractVerticle {
   }
 
   /**
-   * Get access to the local store for this verticle
+   * Get access to the local version store
    */
-  public static ConcurrentHashMap<String, List<JsonObject>> getLocalStore() {
-    return localStore;
+  public static VersionStore getLocalStore() {
+    return VersionStore.getInstance();
   }
 
   @Override
@@ -0,0 +1,585 @@
+package com.example.api;
+
+import io.vertx.core.json.JsonObject;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, memory-mapped storage for {@link VersionStore}.
+ *
+ * Versions are written to fixed-size segment files (segment-N.log) mapped
+ * into memory; the heap only holds an index of the retained versions' offsets
+ * per key, so it stays flat however much history is written. Records are
+ * [int length][int crc32][long hlc timestamp][int keyLength][key][int
+ * valueLength or -1][value]; a zero length marks the end of a segment.
+ *
+ * The index is snapshotted to index.snapshot together with the log position
+ * it covers, so recovery loads the snapshot and replays only the records
+ * written after it. A torn or corrupt record ends the replay. Segments whose
+ * versions have all been trimmed or expired are deleted.
+ *
+ * Appends come from one writer thread at a time ({@link VersionStore} runs
+ * them on a single worker). Index changes are serialized on this object, but
+ * no file is created, mapped, flushed or deleted while holding it, so reads
+ * from the event loop only ever wait for in-memory updates. Records are
+ * immutable once their offset is published, so reads of the mapped bytes need
+ * no lock. The next segment is mapped and its pages touched ahead of time by
+ * {@link #prepareSpare} once the current one is half full; the writer only
+ * maps a segment itself (a roll stall) if that hasn't happened yet.
+ */
+public class MappedVersionLog {
+
+    private static final int SNAPSHOT_MAGIC = 0x56534e31; // "VSN1"
+    private static final int HEADER_BYTES = 8;
+    private static final int PAGE_BYTES = 4096;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final TreeMap<Integer, MappedByteBuffer> segments = new TreeMap<>();
+    private final Map<Integer, Integer> liveVersions = new HashMap<>();
+    private final Map<String, Entry> index = new HashMap<>();
+    private final List<Path> retired = new ArrayList<>();
+
+    private int currentSegment;
+    private int writePosition;
+    private int maxVersions;
+    private boolean recovering;
+    private MappedByteBuffer spare;
+    private boolean preparing;
+
+    private long recoveredRecords;
+    private long deletedSegments;
+    private long snapshots;
+    private long preallocated;
+    private long rollStalls;
+
+    public MappedVersionLog(Path directory, int segmentBytes, int maxVersions) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxVersions = maxVersions;
+    }
+
+    /**
+     * Map existing segments, load the snapshot and replay the log tail
+     */
+    public void open() throws IOException {
+        synchronized (this) {
+            recover();
+        }
+        deleteRetired();
+    }
+
+    private void recover() throws IOException {
+        recovering = true;
+        Files.createDirectories(directory);
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.startsWith("segment-") && name.endsWith(".log")) {
+                    int id = Integer.parseInt(name.substring(8, name.length() - 4));
+                    segments.put(id, map(id));
+                }
+            }
+        }
+        int fromSegment = segments.isEmpty() ? 0 : segments.firstKey();
+        int fromPosition = 0;
+        Path snapshot = directory.resolve("index.snapshot");
+        if (Files.exists(snapshot)) {
+            long[] position = loadSnapshot(snapshot);
+            fromSegment = (int) position[0];
+            fromPosition = (int) position[1];
+        }
+        if (segments.isEmpty()) {
+            segments.put(0, map(0));
+        }
+        currentSegment = Math.max(fromSegment, segments.firstKey());
+        writePosition = currentSegment == fromSegment ? fromPosition : 0;
+        for (int id : new ArrayList<>(segments.tailMap(currentSegment, true).keySet())) {
+            currentSegment = id;
+            writePosition = replay(id, id == fromSegment ? fromPosition : 0);
+        }
+        if (!segments.containsKey(currentSegment)) {
+            segments.put(currentSegment, map(currentSegment));
+            writePosition = 0;
+        }
+        recovering = false;
+        for (int id : new ArrayList<>(segments.keySet())) {
+            if (id != currentSegment && liveVersions.getOrDefault(id, 0) == 0) {
+                retire(id);
+            }
+        }
+    }
+
+    /**
+     * Snapshot of the stored keys
+     */
+    public synchronized List<String> keys() {
+        return new ArrayList<>(index.keySet());
+    }
+
+    public synchronized void setMaxVersions(int maxVersions) {
+        this.maxVersions = maxVersions;
+    }
+
+    /**
+     * Append a version; the caller orders timestamps per key and appends from
+     * one thread at a time
+     */
+    public VersionStore.Version append(String key, String value, long timestamp) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+        int length = 8 + 4 + keyBytes.length + 4 + (valueBytes == null ? 0 : valueBytes.length);
+        if (HEADER_BYTES + length + HEADER_BYTES > segmentBytes) {
+            throw new IllegalArgumentException("Version of " + length + " bytes exceeds the segment size");
+        }
+        boolean rolls;
+        synchronized (this) {
+            rolls = writePosition + HEADER_BYTES + length + HEADER_BYTES > segmentBytes;
+            if (rolls && spare == null) {
+                rollStalls++;
+            }
+        }
+        if (rolls) {
+            // Usually already done by a worker; otherwise map it here, outside the lock
+            try {
+                prepareSpare();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        VersionStore.Version version;
+        synchronized (this) {
+            version = write(key, keyBytes, value, valueBytes, length, timestamp, rolls);
+        }
+        deleteRetired();
+        return version;
+    }
+
+    private VersionStore.Version write(String key, byte[] keyBytes, String value, byte[] valueBytes, int length,
+            long timestamp, boolean rolls) {
+        if (rolls) {
+            rollSegment();
+        }
+        MappedByteBuffer buffer = segments.get(currentSegment);
+        int position = writePosition;
+        int payload = position + HEADER_BYTES;
+        buffer.putLong(payload, timestamp);
+        buffer.putInt(payload + 8, keyBytes.length);
+        buffer.put(payload + 12, keyBytes);
+        int valueAt = payload + 12 + keyBytes.length;
+        buffer.putInt(valueAt, valueBytes == null ? -1 : valueBytes.length);
+        if (valueBytes != null) {
+            buffer.put(valueAt + 4, valueBytes);
+        }
+        buffer.putInt(position + 4, crc(buffer, payload, length));
+        // Length last: a record is only visible to recovery once it is complete
+        buffer.putInt(position, length);
+        writePosition = payload + length;
+
+        addToIndex(key, offset(currentSegment, position));
+        return new VersionStore.Version(value, timestamp);
+    }
+
+    public VersionStore.Version latest(String key) {
+        MappedByteBuffer buffer;
+        long offset;
+        synchronized (this) {
+            Entry entry = index.get(key);
+            if (entry == null) {
+                return null;
+            }
+            offset = entry.latestOffset;
+            buffer = segments.get(segmentOf(offset));
+        }
+        return read(buffer, positionOf(offset));
+    }
+
+    public List<VersionStore.Version> history(String key, int limit) {
+        long[] offsets;
+        MappedByteBuffer[] buffers;
+        synchronized (this) {
+            Entry entry = index.get(key);
+            if (entry == null) {
+                return List.of();
+            }
+            offsets = entry.newest(limit);
+            // Hold the mappings: a segment may be deleted once its versions are trimmed
+            buffers = new MappedByteBuffer[offsets.length];
+            for (int i = 0; i < offsets.length; i++) {
+                buffers[i] = segments.get(segmentOf(offsets[i]));
+            }
+        }
+        List<VersionStore.Version> result = new ArrayList<>(offsets.length);
+        for (int i = 0; i < offsets.length; i++) {
+            result.add(read(buffers[i], positionOf(offsets[i])));
+        }
+        return result;
+    }
+
+    /**
+     * Drop versions stamped before the cutoff, keeping each key's latest;
+     * returns the number dropped
+     */
+    public int expire(long cutoff) {
+        int removed = 0;
+        synchronized (this) {
+            for (Entry entry : index.values()) {
+                while (entry.count > 1 && timestampAt(entry.oldest()) < cutoff) {
+                    release(entry.removeOldest());
+                    removed++;
+                }
+            }
+        }
+        deleteRetired();
+        return removed;
+    }
+
+    /**
+     * Whether the current segment is half full and its successor isn't mapped
+     * yet, so a worker should call {@link #prepareSpare}
+     */
+    public synchronized boolean needsSpare() {
+        return spare == null && !preparing && writePosition >= segmentBytes / 2;
+    }
+
+    /**
+     * Create and map the segment after the current one and touch its pages,
+     * so the roll to it is only a pointer swap. Waits if another thread is
+     * already preparing it; does nothing if it is ready.
+     */
+    public void prepareSpare() throws IOException {
+        int id;
+        synchronized (this) {
+            while (preparing) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while the next segment was prepared", e);
+                }
+            }
+            if (spare != null) {
+                return;
+            }
+            preparing = true;
+            // The writer waits for us before rolling, so this stays the next segment
+            id = currentSegment + 1;
+        }
+        MappedByteBuffer buffer = null;
+        try {
+            buffer = map(id);
+            // Take the page faults (and block allocation) here rather than on the writer
+            for (int i = 0; i < segmentBytes; i += PAGE_BYTES) {
+                buffer.put(i, (byte) 0);
+            }
+        } finally {
+            synchronized (this) {
+                preparing = false;
+                if (buffer != null) {
+                    spare = buffer;
+                    preallocated++;
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Flush dirty mapped pages of the current segment to disk
+     */
+    public void force() {
+        MappedByteBuffer buffer;
+        synchronized (this) {
+            buffer = segments.get(currentSegment);
+        }
+        buffer.force();
+    }
+
+    /**
+     * Write the index and the log position it covers, replacing the previous
+     * snapshot atomically. Segments are flushed after the index is copied and
+     * outside the lock; everything the copy refers to was written before it.
+     */
+    public void snapshot() throws IOException {
+        Map<String, long[]> copy = new HashMap<>();
+        List<MappedByteBuffer> buffers;
+        int segment;
+        int position;
+        synchronized (this) {
+            segment = currentSegment;
+            position = writePosition;
+            index.forEach((key, entry) -> copy.put(key, entry.oldestFirst()));
+            buffers = new ArrayList<>(segments.values());
+        }
+        buffers.forEach(MappedByteBuffer::force);
+        Path tmp = directory.resolve("index.snapshot.tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(segment);
+            out.writeInt(position);
+            out.writeInt(copy.size());
+            for (Map.Entry<String, long[]> entry : copy.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().length);
+                for (long offset : entry.getValue()) {
+                    out.writeLong(offset);
+                }
+            }
+        }
+        Files.move(tmp, directory.resolve("index.snapshot"), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        synchronized (this) {
+            snapshots++;
+        }
+    }
+
+    public synchronized JsonObject stats() {
+        long versions = 0;
+        for (Entry entry : index.values()) {
+            versions += entry.count;
+        }
+        return new JsonObject()
+                .put("storage", "mmap")
+                .put("directory", directory.toString())
+                .put("keys", index.size())
+                .put("versions", versions)
+                .put("segments", segments.size())
+                .put("segmentBytes", segmentBytes)
+                .put("currentSegment", currentSegment)
+                .put("writePosition", writePosition)
+                .put("recoveredRecords", recoveredRecords)
+                .put("deletedSegments", deletedSegments)
+                .put("snapshots", snapshots)
+                .put("spareReady", spare != null)
+                .put("preallocated", preallocated)
+                .put("rollStalls", rollStalls);
+    }
+
+    private long[] loadSnapshot(Path snapshot) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a version index snapshot: " + snapshot);
+            }
+            int segment = in.readInt();
+            int position = in.readInt();
+            int keys = in.readInt();
+            for (int i = 0; i < keys; i++) {
+                String key = in.readUTF();
+                int count = in.readInt();
+                for (int j = 0; j < count; j++) {
+                    long offset = in.readLong();
+                    // Segments deleted after the snapshot held only dropped versions
+                    if (segments.containsKey(segmentOf(offset))) {
+                        addToIndex(key, offset);
+                    }
+                }
+            }
+            return new long[] { segment, position };
+        }
+    }
+
+    /**
+     * Index the records of a segment from a position; returns the position after
+     * the last valid record
+     */
+    private int replay(int segment, int position) {
+        MappedByteBuffer buffer = segments.get(segment);
+        while (position + HEADER_BYTES <= segmentBytes) {
+            int length = buffer.getInt(position);
+            int payload = position + HEADER_BYTES;
+            if (length <= 0 || payload + length > segmentBytes
+                    || buffer.getInt(position + 4) != crc(buffer, payload, length)) {
+                break;
+            }
+            addToIndex(readKey(buffer, payload), offset(segment, position));
+            recoveredRecords++;
+            position = payload + length;
+        }
+        return position;
+    }
+
+    private void addToIndex(String key, long offset) {
+        Entry entry = index.computeIfAbsent(key, k -> new Entry());
+        entry.add(offset);
+        liveVersions.merge(segmentOf(offset), 1, Integer::sum);
+        while (entry.count > maxVersions) {
+            release(entry.removeOldest());
+        }
+    }
+
+    private void release(long offset) {
+        int segment = segmentOf(offset);
+        int live = liveVersions.merge(segment, -1, Integer::sum);
+        if (live <= 0 && segment != currentSegment && !recovering) {
+            retire(segment);
+        }
+    }
+
+    /**
+     * Switch to the prepared spare segment
+     */
+    private void rollSegment() {
+        int previous = currentSegment;
+        currentSegment = previous + 1;
+        segments.put(currentSegment, spare);
+        spare = null;
+        writePosition = 0;
+        if (liveVersions.getOrDefault(previous, 0) == 0) {
+            retire(previous);
+        }
+    }
+
+    /**
+     * Forget a segment; its file is deleted by {@link #deleteRetired} once the
+     * lock is released
+     */
+    private void retire(int segment) {
+        segments.remove(segment);
+        liveVersions.remove(segment);
+        retired.add(segmentPath(segment));
+    }
+
+    private void deleteRetired() {
+        List<Path> files;
+        synchronized (this) {
+            if (retired.isEmpty()) {
+                return;
+            }
+            files = new ArrayList<>(retired);
+            retired.clear();
+        }
+        for (Path file : files) {
+            try {
+                Files.deleteIfExists(file);
+                synchronized (this) {
+                    deletedSegments++;
+                }
+            } catch (IOException e) {
+                System.err.println("[MappedVersionLog] Failed to delete " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private MappedByteBuffer map(int segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve("segment-" + segment + ".log");
+    }
+
+    private static VersionStore.Version read(MappedByteBuffer buffer, int position) {
+        int payload = position + HEADER_BYTES;
+        long timestamp = buffer.getLong(payload);
+        int keyLength = buffer.getInt(payload + 8);
+        int valueAt = payload + 12 + keyLength;
+        int valueLength = buffer.getInt(valueAt);
+        String value = null;
+        if (valueLength >= 0) {
+            byte[] bytes = new byte[valueLength];
+            buffer.get(valueAt + 4, bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return new VersionStore.Version(value, timestamp);
+    }
+
+    private static String readKey(MappedByteBuffer buffer, int payload) {
+        byte[] bytes = new byte[buffer.getInt(payload + 8)];
+        buffer.get(payload + 12, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private long timestampAt(long offset) {
+        return segments.get(segmentOf(offset)).getLong(positionOf(offset) + HEADER_BYTES);
+    }
+
+    private static int crc(MappedByteBuffer buffer, int from, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(from, length));
+        return (int) crc.getValue();
+    }
+
+    private static long offset(int segment, int position) {
+        return ((long) segment << 32) | (position & 0xffffffffL);
+    }
+
+    private static int segmentOf(long offset) {
+        return (int) (offset >>> 32);
+    }
+
+    private static int positionOf(long offset) {
+        return (int) offset;
+    }
+
+    /**
+     * Offsets of one key's retained versions, oldest first, in a ring
+     */
+    private static final class Entry {
+        long[] offsets = new long[4];
+        int start;
+        int count;
+        long latestOffset;
+
+        void add(long offset) {
+            if (count == offsets.length) {
+                long[] grown = new long[offsets.length * 2];
+                for (int i = 0; i < count; i++) {
+                    grown[i] = offsets[(start + i) % offsets.length];
+                }
+                offsets = grown;
+                start = 0;
+            }
+            offsets[(start + count) % offsets.length] = offset;
+            count++;
+            latestOffset = offset;
+        }
+
+        long oldest() {
+            return offsets[start];
+        }
+
+        long removeOldest() {
+            long offset = offsets[start];
+            start = (start + 1) % offsets.length;
+            count--;
+            return offset;
+        }
+
+        long[] newest(int limit) {
+            int n = Math.min(limit, count);
+            long[] result = new long[n];
+            for (int i = 0; i < n; i++) {
+                result[i] = offsets[(start + count - 1 - i) % offsets.length];
+            }
+            return result;
+        }
+
+        long[] oldestFirst() {
+            long[] result = new long[count];
+            for (int i = 0; i < count; i++) {
+                result[i] = offsets[(start + i) % offsets.length];
+            }
+            return result;
+        }
+    }
+}
@@ -1,11 +1,28 @@
 package com.example.api;
 
 import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
 import io.vertx.core.Promise;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.BulkOperation;
+import io.vertx.ext.mongo.BulkWriteOptions;
 import io.vertx.ext.mongo.FindOptions;
 import io.vertx.ext.mongo.MongoClient;
+import io.vertx.ext.mongo.MongoClientBulkWriteResult;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import org.bson.types.ObjectId;
 
 /**
  * Master CRUD Verticle that centralizes persistence operations.
@@ -16,148 +33,237 @@ import io.vertx.ext.mongo.MongoClient;
  * - crud.update
  * - crud.patch
  * - crud.delete
+ * - crud.bulk
+ * - crud.stats (cache statistics)
+ * Each address is also consumed locally as crud.*.local for {@link CrudClient}'s
+ * local-first routing. When deployed for a partition (config "partition") it
+ * consumes crud.*.<partition> instead of the plain addresses; unkeyed
+ * requests reach it round-robin through {@link CrudClient}.
+ * Writes are published on crud.invalidate for the HTTP near-caches.
+ * JsonObject replies use the binary {@link CrudMessageCodec}.
  */
 public class MasterCrudVerticle extends AbstractVerticle {
 
+    private static final Pattern OBJECT_ID = Pattern.compile("^[0-9a-fA-F]{24}$");
+
+    private Integer partition;
     private MongoClient mongo;
+    private CountCache countCache;
+    private EntityCache entityCache;
+    private GetBatcher getBatcher;
+    private final SingleFlight<JsonObject> getFlights = new SingleFlight<>();
+    private final SingleFlight<JsonObject> listFlights = new SingleFlight<>();
 
     @Override
     public void start(Promise<Void> startPromise) {
+        CrudMessageCodec.register(vertx);
+        partition = config().getInteger("partition");
         // Ensure DatabaseManager is initialized before setting up consumers
         DatabaseManager.getInstance().initialize(vertx)
                 .onSuccess(v -> {
                     mongo = DatabaseManager.getInstance().getMongoClient();
+                    countCache = new CountCache(config().getLong("countCacheTtlMs", 5000L));
+                    entityCache = new EntityCache(config().getInteger("entityCacheSize", 10_000),
+                            config().getLong("entityCacheTtlMs", 30_000L));
+                    getBatcher = GetBatcher.fromConfig(vertx, mongo, "resources", config());
 
                     // Create
-                    vertx.eventBus().consumer("crud.create", msg -> {
+                    consume("crud.create", msg -> {
                         JsonObject body = (JsonObject) msg.body();
-                        if (body == null || !body.containsKey("name") || body.getString("name").trim().isEmpty()) {
-                            msg.fail(400, "Name is required and cannot be empty");
+                        String error = validateName(body);
+                        if (error != null) {
+                            msg.fail(400, error);
                             return;
                         }
-                        JsonObject resource = new JsonObject()
-                                .put("name", body.getString("name").trim())
-                                .put("description", body.getString("description", ""))
-                                .put("category", body.getString("category", ""));
-                        mongo.insert("resources", resource)
+                        JsonObject resource = newResource(body);
+                        Metrics.getInstance().mongo("insert", () -> mongo.insert("resources", resource))
                                 .onSuccess(id -> {
+                                    // Other masters' totals and list pages are stale too
+                                    invalidate(id);
                                     resource.put("_id", id);
-                                    msg.reply(resource);
+                                    msg.reply(resource, CrudMessageCodec.options());
                                 })
                                 .onFailure(err -> msg.fail(500, err.getMessage()));
                     });
 
                     // Get by ID
-                    vertx.eventBus().consumer("crud.get", msg -> {
+                    consume("crud.get", msg -> {
                         String id = (String) msg.body();
-                        if (id == null || !id.matches("^[0-9a-fA-F]{24}$")) {
-                            msg.fail(400, "Invalid ID format");
+                        String error = validateId(id);
+                        if (error != null) {
+                            msg.fail(400, error);
+                            return;
+                        }
+                        JsonObject cached = entityCache.get(id);
+                        if (cached != null) {
+                            msg.reply(cached, CrudMessageCodec.sharedOptions());
                             return;
                         }
-                        mongo.findOne("resources", new JsonObject().put("_id", id), null)
+                        // Concurrent gets for the same id share one findOne
+                        getFlights.run(id, () -> loadResource(id))
                                 .onSuccess(doc -> {
                                     if (doc == null) {
                                         msg.fail(404, "Resource not found");
                                     } else {
-                                        msg.reply(doc);
+                                        msg.reply(doc, CrudMessageCodec.sharedOptions());
                                     }
                                 })
                                 .onFailure(err -> msg.fail(500, err.getMessage()));
                     });
 
-                    // List with pagination & filtering
-                    vertx.eventBus().consumer("crud.list", msg -> {
+                    // List with offset or keyset (cursor) pagination & filtering
+                    consume("crud.list", msg -> {
                         JsonObject params = (JsonObject) msg.body();
-                        int page = params.getInteger("page", 1);
-                        int limit = params.getInteger("limit", 10);
+                        int page = Math.max(1, params.getInteger("page", 1));
+                        int limit = RouterUtility.clampLimit(params.getInteger("limit", RouterUtility.DEFAULT_LIMIT));
                         String filter = params.getString("filter");
-                        JsonObject query = new JsonObject();
-                        if (filter != null && filter.contains(":")) {
-                            String[] parts = filter.split(":", 2);
-                            query.put(parts[0], parts[1]);
+                        PageCursor.Sort sort;
+                        PageCursor cursor = null;
+                        ResourceQueries.Plan plan;
+                        try {
+                            plan = ResourceQueries.plan(filter);
+                            sort = PageCursor.Sort.parse(params.getString("sort"));
+                            String token = params.getString("cursor");
+                            if (token != null && !token.isEmpty()) {
+                                cursor = PageCursor.decode(token);
+                                if (!cursor.sort.matches(sort)) {
+                                    msg.fail(400, "Cursor does not match the requested sort");
+                                    return;
+                                }
+                            }
+                        } catch (IllegalArgumentException e) {
+                            msg.fail(400, e.getMessage());
+                            return;
                         }
-                        int skip = (page - 1) * limit;
-                        FindOptions options = new FindOptions().setSkip(skip).setLimit(limit);
-                        mongo.findWithOptions("resources", query, options)
-                                .onSuccess(list -> mongo.count("resources", query)
-                                        .onSuccess(total -> {
-                                            JsonObject response = new JsonObject()
-                                                    .put("data", new JsonArray(list))
-                                                    .put("pagination", new JsonObject()
-                                                            .put("page", page)
-                                                            .put("limit", limit)
-                                                            .put("total", total)
-                                                            .put("pages", (int) Math.ceil(total / (double) limit)));
-                                            msg.reply(response);
-                                        })
-                                        .onFailure(err -> msg.fail(500, err.getMessage())))
+                        boolean withTotal = params.getBoolean("withTotal", false);
+                        // Concurrent identical list queries share one find (and count)
+                        String key = CountCache.normalize(plan.query) + "|" + sort.field + ":" + sort.direction
+                                + "|" + (cursor != null ? cursor.encode() : "p" + page)
+                                + "|" + limit + "|" + withTotal;
+                        PageCursor after = cursor;
+                        listFlights.run(key, () -> loadPage(plan, after, sort, page, limit, withTotal))
+                                .onSuccess(response -> msg.reply(response, CrudMessageCodec.sharedOptions()))
                                 .onFailure(err -> msg.fail(500, err.getMessage()));
                     });
 
                     // Update (PUT)
-                    vertx.eventBus().consumer("crud.update", msg -> {
+                    consume("crud.update", msg -> {
                         JsonObject payload = (JsonObject) msg.body();
                         String id = payload.getString("id");
                         JsonObject body = payload.getJsonObject("body");
-                        if (id == null || !id.matches("^[0-9a-fA-F]{24}$")) {
-                            msg.fail(400, "Invalid ID format");
+                        String error = validateId(id);
+                        if (error == null)
+                            error = validateName(body);
+                        if (error != null) {
+                            msg.fail(400, error);
                             return;
                         }
-                        if (body == null || !body.containsKey("name") || body.getString("name").trim().isEmpty()) {
-                            msg.fail(400, "Name is required and cannot be empty");
-                            return;
-                        }
-                        mongo.findOneAndReplace("resources", new JsonObject().put("_id", id), body)
+                        Metrics.getInstance().mongo("findOneAndReplace", () ->
+                                mongo.findOneAndReplace("resources", new JsonObject().put("_id", id), body))
                                 .onSuccess(doc -> {
+                                    invalidate(id);
                                     if (doc == null)
                                         msg.fail(404, "Resource not found");
                                     else
-                                        msg.reply(body.put("_id", id));
+                                        msg.reply(body.copy().put("_id", id), CrudMessageCodec.options());
                                 })
                                 .onFailure(err -> msg.fail(500, err.getMessage()));
                     });
 
                     // Patch
-                    vertx.eventBus().consumer("crud.patch", msg -> {
+                    consume("crud.patch", msg -> {
                         JsonObject payload = (JsonObject) msg.body();
                         String id = payload.getString("id");
                         JsonObject body = payload.getJsonObject("body");
-                        if (id == null || !id.matches("^[0-9a-fA-F]{24}$")) {
-                            msg.fail(400, "Invalid ID format");
-                            return;
-                        }
-                        if (body == null || body.isEmpty()) {
-                            msg.fail(400, "At least one field is required");
+                        String error = validateId(id);
+                        if (error == null)
+                            error = validatePatch(body);
+                        if (error != null) {
+                            msg.fail(400, error);
                             return;
                         }
                         JsonObject update = new JsonObject().put("$set", body);
-                        mongo.findOneAndUpdate("resources", new JsonObject().put("_id", id), update)
+                        Metrics.getInstance().mongo("findOneAndUpdate", () ->
+                                mongo.findOneAndUpdate("resources", new JsonObject().put("_id", id), update))
                                 .onSuccess(doc -> {
+                                    invalidate(id);
                                     if (doc == null)
                                         msg.fail(404, "Resource not found");
                                     else
-                                        msg.reply(doc.mergeIn(body));
+                                        msg.reply(doc.mergeIn(body), CrudMessageCodec.options());
                                 })
                                 .onFailure(err -> msg.fail(500, err.getMessage()));
                     });
 
                     // Delete
-                    vertx.eventBus().consumer("crud.delete", msg -> {
+                    consume("crud.delete", msg -> {
                         String id = (String) msg.body();
-                        if (id == null || !id.matches("^[0-9a-fA-F]{24}$")) {
-                            msg.fail(400, "Invalid ID format");
+                        String error = validateId(id);
+                        if (error != null) {
+                            msg.fail(400, error);
                             return;
                         }
-                        mongo.removeDocument("resources", new JsonObject().put("_id", id))
+                        Metrics.getInstance().mongo("removeDocument", () ->
+                                mongo.removeDocument("resources", new JsonObject().put("_id", id)))
                                 .onSuccess(res -> {
+                                    invalidate(id);
                                     if (res.getRemovedCount() == 0)
                                         msg.fail(404, "Resource not found");
                                     else
-                                        msg.reply(new JsonObject().put("deleted", id));
+                                        msg.reply(new JsonObject().put("deleted", id), CrudMessageCodec.options());
                                 })
                                 .onFailure(err -> msg.fail(500, err.getMessage()));
                     });
 
+                    // Bulk create/update/patch/delete
+                    consume("crud.bulk", this::bulk);
+
+                    // Writes made by other masters in the cluster
+                    vertx.eventBus().consumer(NearCache.INVALIDATION_ADDRESS, msg -> {
+                        if (!deploymentID().equals(msg.headers().get("origin"))) {
+                            for (String id : NearCache.invalidatedIds(msg.body())) {
+                                entityCache.invalidate(id);
+                                getFlights.forget(id);
+                            }
+                            countCache.invalidateAll();
+                            listFlights.forgetAll();
+                        }
+                    });
+
+                    // Query plan of a list filter, from the server's explain
+                    consume("crud.explain", msg -> {
+                        JsonObject params = (JsonObject) msg.body();
+                        ResourceQueries.Plan plan;
+                        PageCursor.Sort sort;
+                        try {
+                            plan = ResourceQueries.plan(params.getString("filter"));
+                            sort = PageCursor.Sort.parse(params.getString("sort"));
+                        } catch (IllegalArgumentException e) {
+                            msg.fail(400, e.getMessage());
+                            return;
+                        }
+                        ResourceQueries.explain(mongo, plan, sort,
+                                        RouterUtility.clampLimit(params.getInteger("limit", RouterUtility.DEFAULT_LIMIT)))
+                                .onSuccess(msg::reply)
+                                .onFailure(err -> msg.fail(500, err.getMessage()));
+                    });
+
+                    // Cache statistics
+                    consume("crud.stats", msg -> {
+                        JsonObject stats = new JsonObject()
+                                .put("entityCache", entityCache.stats())
+                                .put("countCache", countCache.stats())
+                                .put("getCoalescing", getFlights.stats())
+                                .put("listCoalescing", listFlights.stats());
+                        if (getBatcher != null) {
+                            stats.put("getBatching", getBatcher.stats());
+                        }
+                        if (partition != null) {
+                            stats.put("partition", partition);
+                        }
+                        msg.reply(stats);
+                    });
+
                     System.out.println("[MasterCrudVerticle] CRUD Event Bus consumers registered");
                     startPromise.complete();
                 })
@@ -165,4 +271,369 @@ public class MasterCrudVerticle extends AbstractVerticle {
                     startPromise.fail(err);
                 });
     }
+
+    /**
+     * Consume on the clustered address and on its local-only twin, or, when
+     * deployed for a partition by {@link PartitionManager}, on the
+     * partition's own addresses instead.
+     * Handling time is recorded in {@link Metrics}
+     */
+    private void consume(String address, Handler<Message<Object>> consumer) {
+        // Time from receipt to reply, under the base address; sampled requests get
+        // their queue/handling/Mongo breakdown in the reply headers
+        Handler<Message<Object>> handler = RequestTiming.traced(Metrics.getInstance().timed(address, consumer));
+        if (PartitionTable.servesPlain(partition)) {
+            vertx.eventBus().consumer(address, handler);
+            vertx.eventBus().localConsumer(address + CrudClient.LOCAL_SUFFIX, handler);
+        }
+        if (partition != null) {
+            String partitioned = PartitionTable.address(address, partition);
+            vertx.eventBus().consumer(partitioned, handler);
+            vertx.eventBus().localConsumer(partitioned + CrudClient.LOCAL_SUFFIX, handler);
+        }
+    }
+
+    /**
+     * Apply a batch of create/update/patch/delete operations with one
+     * bulkWrite. Each operation is validated with the same rules as the
+     * single-document consumers; invalid ones are reported per item and not
+     * sent. Like those consumers, an update, patch or delete of an id that
+     * does not exist is reported as not_found: the ids are looked up with one
+     * query before the write, and an id deleted earlier in the batch counts as
+     * missing. In ordered mode processing stops at the first invalid, missing
+     * or failed operation and the rest are reported as skipped.
+     */
+    private void bulk(Message<Object> msg) {
+        JsonObject payload = (JsonObject) msg.body();
+        JsonArray operations = payload == null ? null : payload.getJsonArray("operations");
+        if (operations == null || operations.isEmpty()) {
+            msg.fail(400, "At least one operation is required");
+            return;
+        }
+        int maxOperations = config().getInteger("bulkMaxOperations", 1000);
+        if (operations.size() > maxOperations) {
+            msg.fail(400, "At most " + maxOperations + " operations are allowed per request");
+            return;
+        }
+        boolean ordered = payload.getBoolean("ordered", true);
+
+        JsonObject[] results = new JsonObject[operations.size()];
+        List<BulkOperation> writes = new ArrayList<>();
+        List<Integer> writeIndex = new ArrayList<>();
+        Set<String> existingIds = new HashSet<>();
+        for (int i = 0; i < operations.size(); i++) {
+            Object item = operations.getValue(i);
+            JsonObject op = item instanceof JsonObject json ? json : new JsonObject();
+            String type = op.getString("op", "");
+            String id = op.getString("id");
+            JsonObject body = op.getValue("body") instanceof JsonObject json ? json : null;
+            JsonObject result = new JsonObject().put("index", i).put("op", type);
+            results[i] = result;
+
+            String error = null;
+            BulkOperation write = null;
+            switch (type) {
+                case "create" -> {
+                    error = validateName(body);
+                    if (error == null) {
+                        id = new ObjectId().toHexString();
+                        write = BulkOperation.createInsert(newResource(body).put("_id", id));
+                    }
+                }
+                case "update" -> {
+                    error = validateId(id);
+                    if (error == null)
+                        error = validateName(body);
+                    if (error == null)
+                        write = BulkOperation.createReplace(new JsonObject().put("_id", id), body);
+                }
+                case "patch" -> {
+                    error = validateId(id);
+                    if (error == null)
+                        error = validatePatch(body);
+                    if (error == null)
+                        write = BulkOperation.createUpdate(new JsonObject().put("_id", id),
+                                new JsonObject().put("$set", body));
+                }
+                case "delete" -> {
+                    error = validateId(id);
+                    if (error == null)
+                        write = BulkOperation.createDelete(new JsonObject().put("_id", id));
+                }
+                default -> error = "Unknown operation: " + type;
+            }
+
+            if (error != null) {
+                result.put("status", "rejected").put("error", error);
+                if (ordered) {
+                    skipFrom(results, i + 1);
+                    break;
+                }
+                continue;
+            }
+            result.put("_id", id);
+            writes.add(write);
+            writeIndex.add(i);
+            if (!"create".equals(type)) {
+                existingIds.add(id);
+            }
+        }
+
+        if (writes.isEmpty()) {
+            msg.reply(bulkResponse(ordered, results, new JsonObject()), CrudMessageCodec.options());
+            return;
+        }
+
+        Future<Set<String>> existing = existingIds.isEmpty()
+                ? Future.succeededFuture(Set.of())
+                : Metrics.getInstance().mongo("findWithOptions", () -> mongo.findWithOptions("resources",
+                        new JsonObject().put("_id", new JsonObject().put("$in", new JsonArray(new ArrayList<>(existingIds)))),
+                        new FindOptions().setFields(new JsonObject().put("_id", 1))))
+                        .map(docs -> {
+                            Set<String> found = new HashSet<>();
+                            docs.forEach(doc -> found.add(doc.getString("_id")));
+                            return found;
+                        });
+        existing
+                .onSuccess(found -> writeBulk(msg, ordered, results, writes, writeIndex, found))
+                .onFailure(err -> msg.fail(500, err.getMessage()));
+    }
+
+    /**
+     * Second half of {@link #bulk}: drop operations on missing ids, send the
+     * rest and fill in each item's status
+     */
+    private void writeBulk(Message<Object> msg, boolean ordered, JsonObject[] results,
+            List<BulkOperation> planned, List<Integer> plannedIndex, Set<String> found) {
+        Set<String> present = new HashSet<>(found);
+        List<BulkOperation> writes = new ArrayList<>();
+        List<Integer> writeIndex = new ArrayList<>();
+        List<String> touched = new ArrayList<>();
+        for (int p = 0; p < planned.size(); p++) {
+            JsonObject result = results[plannedIndex.get(p)];
+            String type = result.getString("op");
+            String id = result.getString("_id");
+            if (!"create".equals(type) && !present.contains(id)) {
+                result.put("status", "not_found").put("error", "Resource not found");
+                if (ordered) {
+                    skipFrom(results, plannedIndex.get(p) + 1);
+                    break;
+                }
+                continue;
+            }
+            if ("delete".equals(type)) {
+                present.remove(id);
+            }
+            writes.add(planned.get(p));
+            writeIndex.add(plannedIndex.get(p));
+            touched.add(id);
+        }
+
+        if (writes.isEmpty()) {
+            msg.reply(bulkResponse(ordered, results, new JsonObject()), CrudMessageCodec.options());
+            return;
+        }
+
+        Metrics.getInstance().mongo("bulkWriteWithOptions", () ->
+                mongo.bulkWriteWithOptions("resources", writes, new BulkWriteOptions().setOrdered(ordered)))
+                .onComplete(ar -> {
+                    // One local clear and one published message for the whole batch
+                    invalidate(touched);
+
+                    JsonObject counts = new JsonObject();
+                    Set<Integer> failed = new HashSet<>();
+                    if (ar.succeeded()) {
+                        MongoClientBulkWriteResult written = ar.result();
+                        counts.put("insertedCount", written.getInsertedCount())
+                                .put("matchedCount", written.getMatchedCount())
+                                .put("modifiedCount", written.getModifiedCount())
+                                .put("deletedCount", written.getDeletedCount());
+                    } else if (ar.cause() instanceof MongoBulkWriteException bwe) {
+                        BulkWriteResult written = bwe.getWriteResult();
+                        counts.put("insertedCount", written.getInsertedCount())
+                                .put("matchedCount", written.getMatchedCount())
+                                .put("modifiedCount", written.getModifiedCount())
+                                .put("deletedCount", written.getDeletedCount());
+                        for (BulkWriteError writeError : bwe.getWriteErrors()) {
+                            failed.add(writeError.getIndex());
+                            results[writeIndex.get(writeError.getIndex())]
+                                    .put("status", "failed")
+                                    .put("error", writeError.getMessage());
+                        }
+                    } else {
+                        msg.fail(500, ar.cause().getMessage());
+                        return;
+                    }
+                    int firstFailure = failed.stream().min(Integer::compare).orElse(Integer.MAX_VALUE);
+                    for (int w = 0; w < writeIndex.size(); w++) {
+                        JsonObject result = results[writeIndex.get(w)];
+                        if (failed.contains(w)) {
+                            continue;
+                        }
+                        if (ordered && w > firstFailure) {
+                            result.put("status", "skipped");
+                        } else {
+                            result.put("status", "create".equals(result.getString("op")) ? "created" : "ok");
+                        }
+                    }
+                    verifyMatched(writeIndex, results, counts)
+                            .onComplete(v -> msg.reply(bulkResponse(ordered, results, counts),
+                                    CrudMessageCodec.options()));
+                });
+    }
+
+    /**
+     * A document deleted by someone else between the lookup and the write
+     * leaves matchedCount short of the updates and patches reported ok; find
+     * which ids are gone and report those as not_found instead
+     */
+    private Future<Void> verifyMatched(List<Integer> writeIndex, JsonObject[] results, JsonObject counts) {
+        List<JsonObject> changed = new ArrayList<>();
+        for (int index : writeIndex) {
+            JsonObject result = results[index];
+            String type = result.getString("op");
+            if ("ok".equals(result.getString("status")) && ("update".equals(type) || "patch".equals(type))) {
+                changed.add(result);
+            }
+        }
+        if (changed.isEmpty() || counts.getLong("matchedCount", 0L) >= changed.size()) {
+            return Future.succeededFuture();
+        }
+        JsonArray ids = new JsonArray();
+        changed.forEach(result -> ids.add(result.getString("_id")));
+        return Metrics.getInstance().mongo("findWithOptions", () ->
+                mongo.findWithOptions("resources", new JsonObject().put("_id", new JsonObject().put("$in", ids)),
+                        new FindOptions().setFields(new JsonObject().put("_id", 1))))
+                .onSuccess(docs -> {
+                    Set<String> found = new HashSet<>();
+                    docs.forEach(doc -> found.add(doc.getString("_id")));
+                    changed.stream()
+                            .filter(result -> !found.contains(result.getString("_id")))
+                            .forEach(result -> result.put("status", "not_found").put("error", "Resource not found"));
+                })
+                .mapEmpty();
+    }
+
+    private static void skipFrom(JsonObject[] results, int from) {
+        for (int j = from; j < results.length; j++) {
+            results[j] = new JsonObject().put("index", j).put("status", "skipped");
+        }
+    }
+
+    private static JsonObject bulkResponse(boolean ordered, JsonObject[] results, JsonObject counts) {
+        return new JsonObject()
+                .put("ordered", ordered)
+                .put("insertedCount", counts.getLong("insertedCount", 0L))
+                .put("matchedCount", counts.getLong("matchedCount", 0L))
+                .put("modifiedCount", counts.getLong("modifiedCount", 0L))
+                .put("deletedCount", counts.getLong("deletedCount", 0L))
+                .put("results", new JsonArray(Arrays.asList((Object[]) results)));
+    }
+
+    /**
+     * Validation shared by the single-document consumers and crud.bulk; each
+     * returns the error message, or null when valid
+     */
+    private static String validateId(String id) {
+        return id == null || !OBJECT_ID.matcher(id).matches() ? "Invalid ID format" : null;
+    }
+
+    private static String validateName(JsonObject body) {
+        if (body == null || !(body.getValue("name") instanceof String name) || name.trim().isEmpty()) {
+            return "Name is required and cannot be empty";
+        }
+        return null;
+    }
+
+    private static String validatePatch(JsonObject body) {
+        return body == null || body.isEmpty() ? "At least one field is required" : null;
+    }
+
+    private static JsonObject newResource(JsonObject body) {
+        return new JsonObject()
+                .put("name", body.getString("name").trim())
+                .put("description", body.getString("description", ""))
+                .put("category", body.getString("category", ""));
+    }
+
+    /**
+     * Read-through load of a single resource, batched with other ids when
+     * getBatchEnabled is set; resolves to null when it does not exist
+     */
+    private Future<JsonObject> loadResource(String id) {
+        long stamp = entityCache.stamp();
+        Future<JsonObject> load = getBatcher != null
+                ? getBatcher.load(id)
+                : Metrics.getInstance().mongo("findOne", () ->
+                        mongo.findOne("resources", new JsonObject().put("_id", id), null));
+        return load
+                .onSuccess(doc -> {
+                    if (doc != null) {
+                        entityCache.put(id, doc, stamp);
+                    }
+                });
+    }
+
+    /**
+     * Load one list page by offset, or by keyset when a cursor is given. One
+     * extra document is fetched to learn whether a next page exists; totals are
+     * opt-in and counted alongside the find.
+     */
+    private Future<JsonObject> loadPage(ResourceQueries.Plan plan, PageCursor cursor, PageCursor.Sort sort,
+            int page, int limit, boolean withTotal) {
+        FindOptions options = plan.apply(new FindOptions().setSort(sort.toJson()).setLimit(limit + 1));
+        JsonObject query = plan.query;
+        JsonObject pageQuery = cursor != null ? cursor.seek(query) : query;
+        if (cursor == null) {
+            options.setSkip((page - 1) * limit);
+        }
+        Future<List<JsonObject>> find = Metrics.getInstance().mongo("findWithOptions", () ->
+                mongo.findWithOptions("resources", pageQuery, options));
+        Future<Long> count = withTotal
+                ? countCache.count(mongo, "resources", query, plan.countOptions())
+                : Future.succeededFuture();
+        return Future.all(find, count).map(done -> {
+            List<JsonObject> list = find.result();
+            Long total = count.result();
+            String next = PageCursor.nextToken(list, limit, sort);
+            JsonObject pagination = new JsonObject();
+            if (cursor == null) {
+                pagination.put("page", page);
+            }
+            pagination.put("limit", limit);
+            if (total != null) {
+                pagination.put("total", total)
+                        .put("pages", (int) Math.ceil(total / (double) limit));
+            }
+            pagination.put("next", next);
+            return new JsonObject()
+                    .put("data", new JsonArray(list))
+                    .put("pagination", pagination);
+        });
+    }
+
+    /**
+     * Drop a written resource from the local caches and publish the id so every
+     * HTTP near-cache and other master in the cluster drops it too; for a
+     * create this is what clears the other masters' totals and list pages
+     */
+    private void invalidate(String id) {
+        invalidate(List.of(id));
+    }
+
+    /**
+     * Drop several written resources with one cache clear and one published
+     * message (a JsonArray of ids)
+     */
+    private void invalidate(List<String> ids) {
+        ids.forEach(id -> {
+            entityCache.invalidate(id);
+            getFlights.forget(id);
+        });
+        countCache.invalidateAll();
+        listFlights.forgetAll();
+        Object body = ids.size() == 1 ? ids.get(0) : new JsonArray(new ArrayList<>(ids));
+        vertx.eventBus().publish(NearCache.INVALIDATION_ADDRESS, body,
+                new DeliveryOptions().addHeader("origin", deploymentID()));
+    }
 }
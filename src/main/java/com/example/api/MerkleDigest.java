@@ -0,0 +1,127 @@
+package com.example.api;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Merkle digest of a {@link VersionStore}'s latest versions for anti-entropy.
+ * Keys hash into a fixed number of leaves; a leaf's hash is the sum of its
+ * entries' hashes, so it is updated in O(1) when a key's latest version
+ * changes instead of being rebuilt. Inner nodes and the root are derived from
+ * the leaves on demand. Each leaf also indexes its keys, so the entries of a
+ * differing leaf are found without scanning the store.
+ */
+public final class MerkleDigest {
+
+    private final AtomicLongArray leaves;
+    private final List<Set<String>> keys;
+
+    public MerkleDigest(int leafCount) {
+        this.leaves = new AtomicLongArray(leafCount);
+        List<Set<String>> keys = new ArrayList<>(leafCount);
+        for (int i = 0; i < leafCount; i++) {
+            keys.add(ConcurrentHashMap.newKeySet());
+        }
+        this.keys = List.copyOf(keys);
+    }
+
+    public int leafCount() {
+        return leaves.length();
+    }
+
+    public int leafOf(String key) {
+        return (int) Long.remainderUnsigned(HashRing.hash(key), leaves.length());
+    }
+
+    /**
+     * Account for a key's latest version changing from previous (may be null)
+     * to current
+     */
+    public void replace(String key, VersionStore.Version previous, VersionStore.Version current) {
+        int leaf = leafOf(key);
+        long delta = entryHash(key, current) - (previous == null ? 0 : entryHash(key, previous));
+        leaves.addAndGet(leaf, delta);
+        if (previous == null) {
+            keys.get(leaf).add(key);
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < leaves.length(); i++) {
+            leaves.set(i, 0);
+            keys.get(i).clear();
+        }
+    }
+
+    /**
+     * Live view of the keys hashed into a leaf
+     */
+    public Set<String> keysIn(int leaf) {
+        return keys.get(leaf);
+    }
+
+    public long[] leaves() {
+        long[] copy = new long[leaves.length()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = leaves.get(i);
+        }
+        return copy;
+    }
+
+    /**
+     * Hashes of count equal runs of leaves (the last may be shorter), the
+     * level exchanged before individual leaves
+     */
+    public long[] ranges(int count) {
+        long[] level = leaves();
+        int width = rangeWidth(count);
+        long[] ranges = new long[(level.length + width - 1) / width];
+        for (int i = 0; i < level.length; i++) {
+            ranges[i / width] = HashRing.hash(ranges[i / width] + ":" + level[i]);
+        }
+        return ranges;
+    }
+
+    /**
+     * Leaves per range when split into count ranges
+     */
+    public int rangeWidth(int count) {
+        return Math.max(1, (leaves.length() + count - 1) / count);
+    }
+
+    /**
+     * Root of the binary tree over the leaves
+     */
+    public long root() {
+        long[] level = leaves();
+        while (level.length > 1) {
+            long[] parent = new long[(level.length + 1) / 2];
+            for (int i = 0; i < parent.length; i++) {
+                long right = 2 * i + 1 < level.length ? level[2 * i + 1] : 0;
+                parent[i] = HashRing.hash(level[2 * i] + ":" + right);
+            }
+            level = parent;
+        }
+        return level.length == 0 ? 0 : level[0];
+    }
+
+    /**
+     * Indexes of the leaves (or ranges) that differ from another node's
+     */
+    public static List<Integer> diff(long[] mine, long[] theirs) {
+        List<Integer> differing = new ArrayList<>();
+        for (int i = 0; i < Math.min(mine.length, theirs.length); i++) {
+            if (mine[i] != theirs[i]) {
+                differing.add(i);
+            }
+        }
+        return differing;
+    }
+
+    private static long entryHash(String key, VersionStore.Version version) {
+        return HashRing.hash(key + '\u0000' + version.hlc + '\u0000' + version.value);
+    }
+}
@@ -0,0 +1,510 @@
+package com.example.api;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.MultiMap;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.ext.web.Route;
+import io.vertx.ext.web.RoutingContext;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * JVM-wide latency histograms, counters and in-flight gauges for HTTP
+ * routes, event bus requests and handlers, and Mongo operations, rendered in
+ * the Prometheus text format for GET /metrics, together with the limits and
+ * shed counts of every {@link AdaptiveLimiter}.
+ *
+ * Each series is a {@link Timer} created on first use and kept for the life
+ * of the JVM; label values are route patterns, base addresses (without
+ * partition or .local suffixes) and MongoClient method names, so the number
+ * of series stays bounded.
+ */
+public class Metrics {
+
+    // Exported histogram buckets: powers of two from 16 us to 34 s
+    private static final long[] BOUNDS = new long[22];
+    static {
+        for (int i = 0; i < BOUNDS.length; i++) {
+            BOUNDS[i] = 1L << (14 + i);
+        }
+    }
+
+    // Calls needed in a window before its percentiles are trusted
+    private static final int WINDOW_MIN_CALLS = 100;
+
+    private static Metrics instance;
+
+    private final ConcurrentHashMap<Route, Timer> routes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Timer> routeLabels = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Timer> requests = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Timer> handlers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Timer> mongoOps = new ConcurrentHashMap<>();
+    private final AtomicLong httpInFlight = new AtomicLong();
+
+    private Metrics() {
+        // Private constructor for singleton pattern
+    }
+
+    /**
+     * Get singleton instance of Metrics
+     */
+    public static Metrics getInstance() {
+        if (instance == null) {
+            synchronized (Metrics.class) {
+                if (instance == null) {
+                    instance = new Metrics();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Router handler timing each request under the route that finally handled
+     * it; install it first
+     */
+    public Handler<RoutingContext> httpHandler() {
+        return ctx -> {
+            long started = System.nanoTime();
+            httpInFlight.incrementAndGet();
+            ctx.addEndHandler(ar -> {
+                httpInFlight.decrementAndGet();
+                Route route = ctx.currentRoute();
+                Timer timer = route == null ? null : routes.computeIfAbsent(route,
+                        r -> routeLabels.computeIfAbsent(routeLabel(r), Timer::new));
+                if (timer != null) {
+                    timer.record(System.nanoTime() - started, ar.failed() || ctx.response().getStatusCode() >= 500);
+                }
+            });
+            ctx.next();
+        };
+    }
+
+    private static String routeLabel(Route route) {
+        String path = route.getName() != null ? route.getName()
+                : route.getPath() != null ? route.getPath() : "unmatched";
+        String method = route.methods() != null && route.methods().size() == 1
+                ? route.methods().iterator().next().name()
+                : "ANY";
+        return "route=\"" + escape(path) + "\",method=\"" + method + "\"";
+    }
+
+    /**
+     * Client side of an event bus request/reply
+     */
+    public Timer request(String address) {
+        return requests.computeIfAbsent(address, a -> new Timer("address=\"" + escape(a) + "\""));
+    }
+
+    /**
+     * Wrap a consumer so the time from receipt to reply or failure is recorded
+     * under the address
+     */
+    public <T> Handler<Message<T>> timed(String address, Handler<Message<T>> handler) {
+        Timer timer = handlers.computeIfAbsent(address, a -> new Timer("address=\"" + escape(a) + "\""));
+        return msg -> {
+            TimedMessage<T> timed = new TimedMessage<>(msg, timer, timer.start());
+            try {
+                handler.handle(timed);
+            } catch (RuntimeException e) {
+                timed.done(true);
+                throw e;
+            }
+        };
+    }
+
+    /**
+     * Time a Mongo operation under its MongoClient method name, and add it to
+     * the current sampled {@link RequestTiming}
+     */
+    public <T> Future<T> mongo(String operation, Supplier<Future<T>> call) {
+        Timer timer = mongoOp(operation);
+        RequestTiming timing = RequestTiming.sampled();
+        long started = timer.start();
+        Future<T> result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            timer.stop(started, true);
+            throw e;
+        }
+        return result.onComplete(ar -> {
+            timer.stop(started, ar.failed());
+            if (timing != null) {
+                timing.add(RequestTiming.Stage.MONGO, System.nanoTime() - started);
+            }
+        });
+    }
+
+    /**
+     * A Mongo result stream (findBatch*, aggregate, ...) timed under the
+     * operation name until it ends, fails or is cancelled with a null handler
+     */
+    public <T> ReadStream<T> mongoStream(String operation, ReadStream<T> stream) {
+        Timer timer = mongoOp(operation);
+        return new TimedReadStream<>(stream, timer, RequestTiming.sampled(), timer.start());
+    }
+
+    private Timer mongoOp(String operation) {
+        return mongoOps.computeIfAbsent(operation, op -> new Timer("operation=\"" + op + "\""));
+    }
+
+    /**
+     * All series in Prometheus text exposition format 0.0.4
+     */
+    public String prometheus() {
+        StringBuilder out = new StringBuilder(16 * 1024);
+        out.append("# HELP crud_http_in_flight HTTP requests being processed\n")
+                .append("# TYPE crud_http_in_flight gauge\n")
+                .append("crud_http_in_flight ").append(httpInFlight.get()).append('\n');
+        render(out, "crud_http_request", "HTTP request latency by route", sorted(routeLabels), false);
+        render(out, "crud_eventbus_request", "Event bus request/reply latency seen by the sender", sorted(requests), true);
+        render(out, "crud_eventbus_handler", "Event bus consumer time from receipt to reply", sorted(handlers), true);
+        render(out, "crud_mongo_operation", "Mongo operation latency", sorted(mongoOps), true);
+        renderAdmission(out);
+        return out.toString();
+    }
+
+    private static Map<String, Timer> sorted(ConcurrentHashMap<String, Timer> timers) {
+        return new TreeMap<>(timers);
+    }
+
+    private static void render(StringBuilder out, String name, String help, Map<String, Timer> timers,
+            boolean inFlight) {
+        out.append("# HELP ").append(name).append("_duration_seconds ").append(help).append('\n')
+                .append("# TYPE ").append(name).append("_duration_seconds histogram\n");
+        for (Timer timer : timers.values()) {
+            long[] cumulative = timer.histogram.cumulativeCounts(BOUNDS);
+            for (int i = 0; i < BOUNDS.length; i++) {
+                out.append(name).append("_duration_seconds_bucket{").append(timer.labels)
+                        .append(",le=\"").append(BOUNDS[i] / 1e9).append("\"} ").append(cumulative[i]).append('\n');
+            }
+            long count = cumulative[BOUNDS.length];
+            out.append(name).append("_duration_seconds_bucket{").append(timer.labels).append(",le=\"+Inf\"} ")
+                    .append(count).append('\n')
+                    .append(name).append("_duration_seconds_sum{").append(timer.labels).append("} ")
+                    .append(timer.histogram.sumNanos() / 1e9).append('\n')
+                    .append(name).append("_duration_seconds_count{").append(timer.labels).append("} ")
+                    .append(count).append('\n');
+        }
+        out.append("# HELP ").append(name).append("_errors_total Failed calls\n")
+                .append("# TYPE ").append(name).append("_errors_total counter\n");
+        for (Timer timer : timers.values()) {
+            out.append(name).append("_errors_total{").append(timer.labels).append("} ").append(timer.errors.get())
+                    .append('\n');
+        }
+        if (inFlight) {
+            out.append("# HELP ").append(name).append("_in_flight Calls started and not yet completed\n")
+                    .append("# TYPE ").append(name).append("_in_flight gauge\n");
+            for (Timer timer : timers.values()) {
+                out.append(name).append("_in_flight{").append(timer.labels).append("} ").append(timer.inFlight.get())
+                        .append('\n');
+            }
+        }
+    }
+
+    private static void renderAdmission(StringBuilder out) {
+        out.append("# HELP crud_admission_limit Adaptive in-flight limit\n")
+                .append("# TYPE crud_admission_limit gauge\n");
+        for (AdaptiveLimiter limiter : AdaptiveLimiter.all()) {
+            out.append("crud_admission_limit{").append(admissionLabels(limiter)).append("} ")
+                    .append(limiter.limit()).append('\n');
+        }
+        out.append("# HELP crud_admission_in_flight Admitted calls not yet completed\n")
+                .append("# TYPE crud_admission_in_flight gauge\n");
+        for (AdaptiveLimiter limiter : AdaptiveLimiter.all()) {
+            out.append("crud_admission_in_flight{").append(admissionLabels(limiter)).append("} ")
+                    .append(limiter.inFlight()).append('\n');
+        }
+        out.append("# HELP crud_admission_shed_total Calls rejected by admission control\n")
+                .append("# TYPE crud_admission_shed_total counter\n");
+        for (AdaptiveLimiter limiter : AdaptiveLimiter.all()) {
+            for (AdaptiveLimiter.Priority priority : AdaptiveLimiter.Priority.values()) {
+                out.append("crud_admission_shed_total{").append(admissionLabels(limiter))
+                        .append(",priority=\"").append(priority.label).append("\"} ")
+                        .append(limiter.shed(priority)).append('\n');
+            }
+        }
+    }
+
+    private static String admissionLabels(AdaptiveLimiter limiter) {
+        return "scope=\"" + limiter.scope + "\",name=\"" + escape(limiter.name) + "\"";
+    }
+
+    private static String escape(String label) {
+        return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * p50/p99 per series in milliseconds, for the admin stats
+     */
+    public JsonObject stats() {
+        JsonObject stats = new JsonObject();
+        JsonObject http = new JsonObject();
+        routeLabels.forEach((labels, t) -> http.put(labels, t.summary()));
+        stats.put("http", http);
+        JsonObject eventBus = new JsonObject();
+        requests.forEach((address, t) -> eventBus.put(address, t.summary()));
+        stats.put("eventBus", eventBus);
+        JsonObject mongo = new JsonObject();
+        mongoOps.forEach((op, t) -> mongo.put(op, t.summary()));
+        stats.put("mongo", mongo);
+        JsonArray admission = new JsonArray();
+        AdaptiveLimiter.all().forEach(limiter -> admission.add(limiter.stats()));
+        stats.put("admission", admission);
+        return stats;
+    }
+
+    /**
+     * Histogram, error counter and in-flight gauge of one series
+     */
+    public static final class Timer {
+        final String labels;
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong inFlight = new AtomicLong();
+
+        // Percentiles of recent calls, for adaptive timeouts and hedging
+        private volatile long windowComputedAt = System.nanoTime();
+        private volatile long windowP95;
+        private volatile long windowP99;
+        private long[] windowStart;
+        private long windowStartedAt = System.nanoTime();
+
+        Timer(String labels) {
+            this.labels = labels;
+        }
+
+        /**
+         * Mark a call as started; pass the result to {@link #stop}
+         */
+        public long start() {
+            inFlight.incrementAndGet();
+            return System.nanoTime();
+        }
+
+        public void stop(long started, boolean failed) {
+            inFlight.decrementAndGet();
+            record(System.nanoTime() - started, failed);
+        }
+
+        void record(long nanos, boolean failed) {
+            histogram.record(nanos);
+            if (failed) {
+                errors.incrementAndGet();
+            }
+        }
+
+        /**
+         * p95 of recent calls in nanoseconds, or 0 until enough have been seen
+         */
+        public long p95Nanos() {
+            refreshWindow();
+            return windowP95;
+        }
+
+        /**
+         * p99 of recent calls in nanoseconds, or 0 until enough have been seen
+         */
+        public long p99Nanos() {
+            refreshWindow();
+            return windowP99;
+        }
+
+        /**
+         * Recompute the recent percentiles at most once a second from the
+         * calls recorded since the window started; a window is restarted
+         * every 10 seconds once it has enough calls
+         */
+        private void refreshWindow() {
+            long now = System.nanoTime();
+            if (now - windowComputedAt < 1_000_000_000L) {
+                return;
+            }
+            synchronized (this) {
+                if (now - windowComputedAt < 1_000_000_000L) {
+                    return;
+                }
+                windowComputedAt = now;
+                long[] current = histogram.snapshot();
+                long[] recent = new long[current.length];
+                long count = 0;
+                for (int i = 0; i < current.length; i++) {
+                    recent[i] = current[i] - (windowStart == null ? 0 : windowStart[i]);
+                    count += recent[i];
+                }
+                if (count >= WINDOW_MIN_CALLS) {
+                    windowP95 = LatencyHistogram.percentile(recent, 95);
+                    windowP99 = LatencyHistogram.percentile(recent, 99);
+                    if (now - windowStartedAt >= 10_000_000_000L) {
+                        windowStart = current;
+                        windowStartedAt = now;
+                    }
+                }
+            }
+        }
+
+        JsonObject summary() {
+            return new JsonObject()
+                    .put("p50Ms", histogram.percentile(50) / 1e6)
+                    .put("p99Ms", histogram.percentile(99) / 1e6)
+                    .put("errors", errors.get())
+                    .put("inFlight", inFlight.get());
+        }
+    }
+
+    /**
+     * Message that stops its timer on the first reply or failure
+     */
+    private static final class TimedMessage<T> implements Message<T> {
+        private final Message<T> delegate;
+        private final Timer timer;
+        private final long started;
+        private boolean done;
+
+        TimedMessage(Message<T> delegate, Timer timer, long started) {
+            this.delegate = delegate;
+            this.timer = timer;
+            this.started = started;
+        }
+
+        void done(boolean failed) {
+            if (!done) {
+                done = true;
+                timer.stop(started, failed);
+            }
+        }
+
+        @Override
+        public String address() {
+            return delegate.address();
+        }
+
+        @Override
+        public MultiMap headers() {
+            return delegate.headers();
+        }
+
+        @Override
+        public T body() {
+            return delegate.body();
+        }
+
+        @Override
+        public String replyAddress() {
+            return delegate.replyAddress();
+        }
+
+        @Override
+        public boolean isSend() {
+            return delegate.isSend();
+        }
+
+        @Override
+        public void reply(Object message, DeliveryOptions options) {
+            done(false);
+            delegate.reply(message, options);
+        }
+
+        @Override
+        public <R> Future<Message<R>> replyAndRequest(Object message, DeliveryOptions options) {
+            done(false);
+            return delegate.replyAndRequest(message, options);
+        }
+
+        @Override
+        public void fail(int failureCode, String message) {
+            done(failureCode >= 500);
+            delegate.fail(failureCode, message);
+        }
+    }
+
+    /**
+     * Stream that stops its timer when it ends, fails or is cancelled
+     */
+    private static final class TimedReadStream<T> implements ReadStream<T> {
+        private final ReadStream<T> delegate;
+        private final Timer timer;
+        private final RequestTiming timing;
+        private final long started;
+        private Handler<Throwable> exceptionHandler;
+        private Handler<Void> endHandler;
+        private boolean done;
+
+        TimedReadStream(ReadStream<T> delegate, Timer timer, RequestTiming timing, long started) {
+            this.delegate = delegate;
+            this.timer = timer;
+            this.timing = timing;
+            this.started = started;
+            delegate.exceptionHandler(err -> {
+                done(true);
+                if (exceptionHandler != null) {
+                    exceptionHandler.handle(err);
+                }
+            });
+            delegate.endHandler(v -> {
+                done(false);
+                if (endHandler != null) {
+                    endHandler.handle(v);
+                }
+            });
+        }
+
+        void done(boolean failed) {
+            if (!done) {
+                done = true;
+                timer.stop(started, failed);
+                if (timing != null) {
+                    timing.add(RequestTiming.Stage.MONGO, System.nanoTime() - started);
+                }
+            }
+        }
+
+        @Override
+        public ReadStream<T> exceptionHandler(Handler<Throwable> handler) {
+            exceptionHandler = handler;
+            return this;
+        }
+
+        @Override
+        public ReadStream<T> handler(Handler<T> handler) {
+            if (handler == null) {
+                done(false);
+            }
+            delegate.handler(handler);
+            return this;
+        }
+
+        @Override
+        public ReadStream<T> pause() {
+            delegate.pause();
+            return this;
+        }
+
+        @Override
+        public ReadStream<T> resume() {
+            delegate.resume();
+            return this;
+        }
+
+        @Override
+        public ReadStream<T> fetch(long amount) {
+            delegate.fetch(amount);
+            return this;
+        }
+
+        @Override
+        public ReadStream<T> endHandler(Handler<Void> handler) {
+            endHandler = handler;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.api;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HTTP-side near-cache of already-encoded GET responses, keyed by resource id.
+ * Entries are dropped when MasterCrudVerticle publishes on
+ * {@link #INVALIDATION_ADDRESS}; the TTL bounds staleness if an invalidation is
+ * missed.
+ *
+ * One cache per JVM, shared by every MainVerticle instance and event loop, so
+ * a hot id is cached once and invalidated by a single consumer. Lookups don't
+ * lock; when the cache is full an arbitrary entry is evicted rather than the
+ * least recently used one, which the short TTL makes a small difference.
+ */
+public class NearCache {
+
+    /**
+     * Address MasterCrudVerticle publishes written/deleted resource ids on (a
+     * single id, or a JsonArray of ids for bulk writes)
+     */
+    public static final String INVALIDATION_ADDRESS = "crud.invalidate";
+
+    private static volatile NearCache instance;
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong epoch = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    NearCache(int maxSize, long ttlMillis) {
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * The JVM's near-cache, created with the first enabling verticle config
+     * (nearCacheEnabled, nearCacheSize, nearCacheTtlMs) together with its
+     * invalidation consumer; null when disabled
+     */
+    public static synchronized NearCache start(Vertx vertx, JsonObject config) {
+        if (instance == null && config.getBoolean("nearCacheEnabled", false)) {
+            NearCache cache = new NearCache(config.getInteger("nearCacheSize", 10_000),
+                    config.getLong("nearCacheTtlMs", 1000L));
+            vertx.eventBus().consumer(INVALIDATION_ADDRESS,
+                    msg -> invalidatedIds(msg.body()).forEach(cache::invalidate));
+            instance = cache;
+        }
+        return instance;
+    }
+
+    /**
+     * The JVM's near-cache, or null when none was started
+     */
+    public static NearCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Encoded response or null on miss
+     */
+    public Buffer get(String id) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            if (entries.remove(id, entry)) {
+                expirations.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.body;
+    }
+
+    /**
+     * Stamp to take before asking the master; pass it to {@link #put}
+     */
+    public long stamp() {
+        return epoch.get();
+    }
+
+    /**
+     * Cache an encoded response unless an invalidation arrived while it was in
+     * flight
+     */
+    public void put(String id, Buffer body, long stamp) {
+        if (stamp != epoch.get()) {
+            return;
+        }
+        if (entries.put(id, new Entry(body, System.currentTimeMillis() + ttlMillis)) == null) {
+            evictOverflow(id);
+        }
+        // An invalidation that raced with the put wins
+        if (stamp != epoch.get()) {
+            entries.remove(id);
+        }
+    }
+
+    private void evictOverflow(String keep) {
+        Iterator<String> ids = entries.keySet().iterator();
+        while (entries.size() > maxSize && ids.hasNext()) {
+            String id = ids.next();
+            if (!id.equals(keep) && entries.remove(id) != null) {
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Ids of an invalidation message: one id, or a JsonArray of ids for a bulk
+     * write
+     */
+    public static List<String> invalidatedIds(Object body) {
+        if (body instanceof JsonArray ids) {
+            List<String> list = new ArrayList<>(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                list.add(ids.getString(i));
+            }
+            return list;
+        }
+        return body == null ? List.of() : List.of(body.toString());
+    }
+
+    public void invalidate(String id) {
+        epoch.incrementAndGet();
+        if (entries.remove(id) != null) {
+            invalidations.increment();
+        }
+    }
+
+    /**
+     * Hit-rate counters for this JVM's near-cache
+     */
+    public JsonObject stats() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        return new JsonObject()
+                .put("size", entries.size())
+                .put("maxSize", maxSize)
+                .put("ttlMs", ttlMillis)
+                .put("hits", hitCount)
+                .put("misses", lookups - hitCount)
+                .put("hitRate", lookups == 0 ? 0.0 : hitCount / (double) lookups)
+                .put("expirations", expirations.sum())
+                .put("invalidations", invalidations.sum())
+                .put("evictions", evictions.sum());
+    }
+
+    private static final class Entry {
+        final Buffer body;
+        final long expiresAt;
+
+        Entry(Buffer body, long expiresAt) {
+            this.body = body;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
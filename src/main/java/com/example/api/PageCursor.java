@@ -0,0 +1,154 @@
+package com.example.api;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Opaque keyset pagination token. Holds the active sort key plus the sort value
+ * and _id of the last document returned, so the next page is fetched with a
+ * range predicate instead of a skip.
+ */
+public final class PageCursor {
+
+    /**
+     * Fields a list may be sorted by; _id is always appended as the tie-breaker
+     */
+    public static final Set<String> SORT_FIELDS = Set.of("_id", "name", "category");
+
+    public final Sort sort;
+    public final Object sortValue;
+    public final String lastId;
+
+    private PageCursor(Sort sort, Object sortValue, String lastId) {
+        this.sort = sort;
+        this.sortValue = sortValue;
+        this.lastId = lastId;
+    }
+
+    /**
+     * Build the cursor pointing just past the given document
+     */
+    public static PageCursor after(JsonObject lastDoc, Sort sort) {
+        return new PageCursor(sort, lastDoc.getValue(sort.field), lastDoc.getString("_id"));
+    }
+
+    /**
+     * Decode a token produced by {@link #encode()}
+     */
+    public static PageCursor decode(String token) {
+        try {
+            JsonObject json = new JsonObject(Buffer.buffer(Base64.getUrlDecoder().decode(token)));
+            Sort sort = new Sort(json.getString("f"), json.getInteger("d"));
+            String lastId = json.getString("i");
+            if (!SORT_FIELDS.contains(sort.field) || lastId == null) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new PageCursor(sort, json.getValue("v"), lastId);
+        } catch (DecodeException | ClassCastException | NullPointerException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Encode as a URL-safe opaque token
+     */
+    public String encode() {
+        JsonObject json = new JsonObject()
+                .put("f", sort.field)
+                .put("d", sort.direction)
+                .put("v", sortValue)
+                .put("i", lastId);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.toBuffer().getBytes());
+    }
+
+    /**
+     * Restrict a query to documents strictly after this cursor in sort order
+     */
+    public JsonObject seek(JsonObject query) {
+        String op = sort.direction > 0 ? "$gt" : "$lt";
+        JsonObject range;
+        if ("_id".equals(sort.field)) {
+            range = new JsonObject().put("_id", new JsonObject().put(op, lastId));
+        } else {
+            range = new JsonObject().put("$or", new JsonArray()
+                    .add(new JsonObject().put(sort.field, new JsonObject().put(op, sortValue)))
+                    .add(new JsonObject()
+                            .put(sort.field, sortValue)
+                            .put("_id", new JsonObject().put(op, lastId))));
+        }
+        if (query == null || query.isEmpty()) {
+            return range;
+        }
+        return new JsonObject().put("$and", new JsonArray().add(query).add(range));
+    }
+
+    /**
+     * Cursor for the page following {@code docs}, or null when there is none.
+     * Callers fetch limit + 1 documents; the extra one only signals that another
+     * page exists and is dropped from {@code docs}.
+     */
+    public static String nextToken(List<JsonObject> docs, int limit, Sort sort) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page limit must be at least 1");
+        }
+        if (docs.size() <= limit) {
+            return null;
+        }
+        docs.subList(limit, docs.size()).clear();
+        return after(docs.get(limit - 1), sort).encode();
+    }
+
+    /**
+     * Sort key for list queries, e.g. "name" (ascending) or "-name" (descending)
+     */
+    public static final class Sort {
+        public static final Sort DEFAULT = new Sort("_id", 1);
+
+        public final String field;
+        public final int direction;
+
+        public Sort(String field, int direction) {
+            this.field = field;
+            this.direction = direction < 0 ? -1 : 1;
+        }
+
+        /**
+         * Parse a sort parameter; null or empty means ascending by _id
+         */
+        public static Sort parse(String param) {
+            if (param == null || param.trim().isEmpty()) {
+                return DEFAULT;
+            }
+            String value = param.trim();
+            int direction = 1;
+            if (value.startsWith("-")) {
+                direction = -1;
+                value = value.substring(1);
+            }
+            if (!SORT_FIELDS.contains(value)) {
+                throw new IllegalArgumentException("Invalid sort field: " + value);
+            }
+            return new Sort(value, direction);
+        }
+
+        /**
+         * Mongo sort document with _id as the tie-breaker for a stable order
+         */
+        public JsonObject toJson() {
+            JsonObject json = new JsonObject().put(field, direction);
+            if (!"_id".equals(field)) {
+                json.put("_id", direction);
+            }
+            return json;
+        }
+
+        public boolean matches(Sort other) {
+            return field.equals(other.field) && direction == other.direction;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.api;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.spi.cluster.ClusterManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Deploys one MasterCrudVerticle per partition this node owns and rebalances
+ * when cluster membership changes.
+ *
+ * Config:
+ * - partitions: cluster-wide partition count (default 16, must match on all nodes)
+ * - rebalanceIntervalMs: how often membership is checked (default 2000)
+ * - master: config passed to every MasterCrudVerticle
+ */
+public class PartitionManager extends AbstractVerticle {
+
+    private final ClusterManager clusterManager;
+    private final Map<Integer, String> deployments = new HashMap<>();
+    private List<String> members = List.of();
+    private boolean rebalancing;
+
+    public PartitionManager(ClusterManager clusterManager) {
+        this.clusterManager = clusterManager;
+    }
+
+    @Override
+    public void start(Promise<Void> startPromise) {
+        PartitionTable.getInstance().setPartitions(config().getInteger("partitions", 16));
+        rebalance()
+                .onSuccess(v -> {
+                    // The cluster manager's single node listener belongs to the event bus, so poll membership
+                    vertx.setPeriodic(config().getLong("rebalanceIntervalMs", 2000L), t -> {
+                        if (!rebalancing) {
+                            rebalance();
+                        }
+                    });
+                    startPromise.complete();
+                })
+                .onFailure(startPromise::fail);
+    }
+
+    private Future<Void> rebalance() {
+        List<String> nodes = new ArrayList<>(clusterManager.getNodes());
+        nodes.sort(null);
+        if (nodes.equals(members)) {
+            return Future.succeededFuture();
+        }
+        rebalancing = true;
+        members = nodes;
+        PartitionTable table = PartitionTable.getInstance();
+        Set<Integer> target = table.ownedBy(clusterManager.getNodeId(), nodes);
+
+        List<Future<?>> changes = new ArrayList<>();
+        // Until the new owner has deployed, CrudClient sends requests for a moved partition to the next one
+        for (int p : target) {
+            if (!deployments.containsKey(p)) {
+                JsonObject masterConfig = config().getJsonObject("master", new JsonObject()).copy()
+                        .put("partition", p);
+                changes.add(vertx.deployVerticle(new MasterCrudVerticle(), new DeploymentOptions().setConfig(masterConfig))
+                        .onSuccess(id -> deployments.put(p, id)));
+            }
+        }
+        for (Map.Entry<Integer, String> entry : new ArrayList<>(deployments.entrySet())) {
+            if (!target.contains(entry.getKey())) {
+                changes.add(vertx.undeploy(entry.getValue())
+                        .onSuccess(v -> deployments.remove(entry.getKey(), entry.getValue())));
+            }
+        }
+        return Future.join(changes)
+                .<Void>mapEmpty()
+                .onComplete(ar -> {
+                    table.setOwned(deployments.keySet());
+                    rebalancing = false;
+                    System.out.println("[PartitionManager] " + nodes.size() + " node(s), owning partitions "
+                            + deployments.keySet());
+                    if (ar.failed()) {
+                        // Retry on the next tick
+                        members = List.of();
+                    }
+                });
+    }
+}
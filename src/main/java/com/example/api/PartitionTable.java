@@ -0,0 +1,137 @@
+package com.example.api;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Maps resource ids to logical partitions and partitions to cluster nodes.
+ *
+ * An id belongs to partition {@code hash(id) mod partitions}; the partition
+ * count is fixed cluster-wide so that mapping never moves. A partition is
+ * owned by the node with the highest rendezvous score for it, so when a node
+ * joins or leaves only the partitions it wins or loses change hands.
+ * Partitioned requests go to {@code <address>.<partition>} (e.g. crud.get.3).
+ * Partitioned masters don't consume the plain addresses: {@link CrudClient}
+ * spreads unkeyed requests (crud.list, crud.bulk, keyless creates, ...)
+ * round-robin over the partition addresses. Every master reads and writes
+ * the same database, so any of them can serve an unkeyed request.
+ */
+public class PartitionTable {
+
+    private static PartitionTable instance;
+
+    private volatile int partitions;
+    private volatile Set<Integer> owned = Collections.emptySet();
+    private volatile List<Integer> ownedList = List.of();
+
+    private PartitionTable() {
+        // Private constructor for singleton pattern
+    }
+
+    /**
+     * Get singleton instance of PartitionTable
+     */
+    public static PartitionTable getInstance() {
+        if (instance == null) {
+            synchronized (PartitionTable.class) {
+                if (instance == null) {
+                    instance = new PartitionTable();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Partition count for this cluster; 0 or 1 means unpartitioned
+     */
+    public int partitions() {
+        return partitions;
+    }
+
+    public void setPartitions(int partitions) {
+        this.partitions = Math.max(0, partitions);
+    }
+
+    public boolean isPartitioned() {
+        return partitions > 1;
+    }
+
+    public int partitionOf(String key) {
+        return (int) Long.remainderUnsigned(mix(key.hashCode()), partitions);
+    }
+
+    /**
+     * Whether a master for the partition is deployed in this JVM
+     */
+    public boolean ownsLocally(int partition) {
+        return owned.contains(partition);
+    }
+
+    /**
+     * Partitions mastered in this JVM, ascending
+     */
+    public List<Integer> ownedLocally() {
+        return ownedList;
+    }
+
+    void setOwned(Set<Integer> owned) {
+        TreeSet<Integer> sorted = new TreeSet<>(owned);
+        this.owned = Collections.unmodifiableSet(sorted);
+        this.ownedList = List.copyOf(sorted);
+    }
+
+    /**
+     * Whether the master deployed for the partition (null when unpartitioned)
+     * consumes the plain addresses: only when the cluster isn't partitioned
+     */
+    public static boolean servesPlain(Integer partition) {
+        return partition == null || !getInstance().isPartitioned();
+    }
+
+    public static String address(String address, int partition) {
+        return address + "." + partition;
+    }
+
+    /**
+     * Partitions the given node owns among the given cluster members
+     */
+    public Set<Integer> ownedBy(String nodeId, List<String> nodes) {
+        Set<Integer> result = new TreeSet<>();
+        for (int p = 0; p < Math.max(1, partitions); p++) {
+            String winner = null;
+            long best = 0;
+            for (String node : nodes) {
+                long score = mix(node.hashCode() * 31L + p);
+                if (winner == null || Long.compareUnsigned(score, best) > 0
+                        || (score == best && node.compareTo(winner) < 0)) {
+                    winner = node;
+                    best = score;
+                }
+            }
+            if (nodeId.equals(winner)) {
+                result.add(p);
+            }
+        }
+        return result;
+    }
+
+    public JsonObject stats() {
+        return new JsonObject()
+                .put("partitions", partitions)
+                .put("ownedLocally", new JsonArray(List.copyOf(owned)));
+    }
+
+    /**
+     * SplitMix64 finalizer: spreads String.hashCode over all 64 bits
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
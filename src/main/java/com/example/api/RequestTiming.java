@@ -0,0 +1,300 @@
+package com.example.api;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.MultiMap;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.spi.context.storage.ContextLocal;
+import io.vertx.ext.web.RoutingContext;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Request id and per-stage timing of one HTTP request, following it from the
+ * HTTP verticle to the MasterCrudVerticle and back.
+ *
+ * Every request gets an X-Request-Id (the client's, or a new one) that is
+ * echoed in the response and sent to the master in the x-request-id event
+ * bus header. A sampled request (timingSampleRate, or a client sending
+ * X-Request-Timing: true) also sends its send time; the master replies with
+ * how long the message queued, how long it was handled and how much of that
+ * was Mongo, and the HTTP side adds router time, the bus transfer and JSON
+ * encoding. The breakdown is returned in a Server-Timing header and emitted
+ * as a {@link RequestTimingEvent} for JFR.
+ *
+ * The timing is kept in a Vert.x context local, so {@link CrudClient}, the
+ * Mongo client from {@link Metrics} and {@link RouterUtility} find it without
+ * it being passed around. Context locals must be registered before the first
+ * Vertx instance is created; MainApp calls {@link #init()} for that.
+ */
+public final class RequestTiming {
+
+    public static final String REQUEST_ID_HEADER = "X-Request-Id";
+    public static final String SAMPLE_HEADER = "X-Request-Timing";
+
+    static final String BUS_REQUEST_ID = "x-request-id";
+    static final String BUS_SENT_MICROS = "x-timing-sent";
+    static final String BUS_QUEUE_NANOS = "x-timing-queue";
+    static final String BUS_MASTER_NANOS = "x-timing-master";
+    static final String BUS_MONGO_NANOS = "x-timing-mongo";
+
+    private static final ContextLocal<RequestTiming> CURRENT = ContextLocal.registerLocal(RequestTiming.class);
+
+    /**
+     * Stages in Server-Timing order
+     */
+    enum Stage {
+        HTTP, QUEUE, MASTER, MONGO, BUS, ENCODE;
+
+        final String metricName = name().toLowerCase(Locale.ROOT);
+    }
+
+    final String requestId;
+    final boolean sampled;
+    private final long started = System.nanoTime();
+    private final long[] stages;
+    private boolean dispatched;
+
+    private RequestTiming(String requestId, boolean sampled) {
+        this.requestId = requestId;
+        this.sampled = sampled;
+        this.stages = sampled ? new long[Stage.values().length] : null;
+    }
+
+    /**
+     * Register the context local; call before creating Vertx
+     */
+    public static void init() {
+        // Loading the class registers CURRENT
+    }
+
+    /**
+     * The current request's timing, or null outside a request
+     */
+    public static RequestTiming current() {
+        Context context = Vertx.currentContext();
+        return context == null ? null : CURRENT.get(context);
+    }
+
+    /**
+     * The current request's timing when it is sampled, otherwise null
+     */
+    public static RequestTiming sampled() {
+        RequestTiming timing = current();
+        return timing != null && timing.sampled ? timing : null;
+    }
+
+    private static void attach(RequestTiming timing) {
+        Context context = Vertx.currentContext();
+        if (context != null) {
+            CURRENT.put(context, timing);
+        }
+    }
+
+    /**
+     * Router handler assigning the request id and, for sampled requests,
+     * collecting the breakdown. Config: timingSampleRate, the fraction of
+     * requests to sample (default 0)
+     */
+    public static Handler<RoutingContext> handler(JsonObject config) {
+        double sampleRate = config.getDouble("timingSampleRate", 0.0);
+        return ctx -> {
+            String requestId = ctx.request().getHeader(REQUEST_ID_HEADER);
+            if (requestId == null || requestId.isEmpty() || requestId.length() > 128) {
+                requestId = Long.toHexString(ThreadLocalRandom.current().nextLong());
+            }
+            ctx.response().putHeader(REQUEST_ID_HEADER, requestId);
+            boolean sampled = "true".equalsIgnoreCase(ctx.request().getHeader(SAMPLE_HEADER))
+                    || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+            RequestTiming timing = new RequestTiming(requestId, sampled);
+            attach(timing);
+            if (sampled) {
+                RequestTimingEvent event = new RequestTimingEvent();
+                event.begin();
+                ctx.addHeadersEndHandler(v -> ctx.response().putHeader("Server-Timing", timing.serverTiming()));
+                ctx.addEndHandler(ar -> timing.commit(event, ctx));
+            }
+            ctx.next();
+        };
+    }
+
+    /**
+     * Add the request id (and for sampled requests the send time) to an event
+     * bus request's headers
+     */
+    DeliveryOptions propagate(DeliveryOptions options) {
+        options.addHeader(BUS_REQUEST_ID, requestId);
+        if (sampled) {
+            if (!dispatched) {
+                dispatched = true;
+                add(Stage.HTTP, System.nanoTime() - started);
+            }
+            options.addHeader(BUS_SENT_MICROS, Long.toString(epochMicros()));
+        }
+        return options;
+    }
+
+    /**
+     * Split a finished request/reply into queueing and handling on the master
+     * (from the reply headers) and transfer on the bus (the rest)
+     */
+    void received(long sentNanos, AsyncResult<Message<Object>> reply) {
+        if (!sampled) {
+            return;
+        }
+        long roundTrip = System.nanoTime() - sentNanos;
+        long onMaster = 0;
+        if (reply.succeeded()) {
+            MultiMap headers = reply.result().headers();
+            long queue = parse(headers.get(BUS_QUEUE_NANOS));
+            long master = parse(headers.get(BUS_MASTER_NANOS));
+            add(Stage.QUEUE, queue);
+            add(Stage.MASTER, master);
+            add(Stage.MONGO, parse(headers.get(BUS_MONGO_NANOS)));
+            onMaster = queue + master;
+        }
+        add(Stage.BUS, Math.max(0, roundTrip - onMaster));
+    }
+
+    void add(Stage stage, long nanos) {
+        if (sampled) {
+            stages[stage.ordinal()] += nanos;
+        }
+    }
+
+    private String serverTiming() {
+        StringBuilder header = new StringBuilder(128);
+        for (Stage stage : Stage.values()) {
+            long nanos = stages[stage.ordinal()];
+            if (nanos > 0) {
+                header.append(stage.metricName).append(";dur=").append(millis(nanos)).append(", ");
+            }
+        }
+        return header.append("total;dur=").append(millis(System.nanoTime() - started)).toString();
+    }
+
+    private void commit(RequestTimingEvent event, RoutingContext ctx) {
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.requestId = requestId;
+        event.method = ctx.request().method().name();
+        event.route = ctx.currentRoute() != null ? ctx.currentRoute().getPath() : null;
+        event.status = ctx.response().getStatusCode();
+        event.http = stages[Stage.HTTP.ordinal()];
+        event.bus = stages[Stage.BUS.ordinal()];
+        event.queue = stages[Stage.QUEUE.ordinal()];
+        event.master = stages[Stage.MASTER.ordinal()];
+        event.mongo = stages[Stage.MONGO.ordinal()];
+        event.encode = stages[Stage.ENCODE.ordinal()];
+        event.commit();
+    }
+
+    /**
+     * Wrap a master consumer so sampled requests are timed and the timing is
+     * returned in the reply headers; other messages pass straight through
+     */
+    public static <T> Handler<Message<T>> traced(Handler<Message<T>> handler) {
+        return msg -> {
+            String sent = msg.headers().get(BUS_SENT_MICROS);
+            if (sent == null) {
+                handler.handle(msg);
+                return;
+            }
+            long queued = Math.max(0, epochMicros() - parse(sent)) * 1000;
+            RequestTiming timing = new RequestTiming(msg.headers().get(BUS_REQUEST_ID), true);
+            attach(timing);
+            handler.handle(new TracedMessage<>(msg, timing, queued));
+        };
+    }
+
+    private static long epochMicros() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000 + now.getNano() / 1000;
+    }
+
+    private static long parse(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    /**
+     * Master-side message adding the timing headers to its reply
+     */
+    private static final class TracedMessage<T> implements Message<T> {
+        private final Message<T> delegate;
+        private final RequestTiming timing;
+        private final long queuedNanos;
+
+        TracedMessage(Message<T> delegate, RequestTiming timing, long queuedNanos) {
+            this.delegate = delegate;
+            this.timing = timing;
+            this.queuedNanos = queuedNanos;
+        }
+
+        private DeliveryOptions stamp(DeliveryOptions options) {
+            DeliveryOptions stamped = options == null ? new DeliveryOptions() : options;
+            return stamped
+                    .addHeader(BUS_REQUEST_ID, String.valueOf(timing.requestId))
+                    .addHeader(BUS_QUEUE_NANOS, Long.toString(queuedNanos))
+                    .addHeader(BUS_MASTER_NANOS, Long.toString(System.nanoTime() - timing.started))
+                    .addHeader(BUS_MONGO_NANOS, Long.toString(timing.stages[Stage.MONGO.ordinal()]));
+        }
+
+        @Override
+        public String address() {
+            return delegate.address();
+        }
+
+        @Override
+        public MultiMap headers() {
+            return delegate.headers();
+        }
+
+        @Override
+        public T body() {
+            return delegate.body();
+        }
+
+        @Override
+        public String replyAddress() {
+            return delegate.replyAddress();
+        }
+
+        @Override
+        public boolean isSend() {
+            return delegate.isSend();
+        }
+
+        @Override
+        public void reply(Object message, DeliveryOptions options) {
+            delegate.reply(message, stamp(options));
+        }
+
+        @Override
+        public <R> Future<Message<R>> replyAndRequest(Object message, DeliveryOptions options) {
+            return delegate.replyAndRequest(message, stamp(options));
+        }
+
+        @Override
+        public void fail(int failureCode, String message) {
+            delegate.fail(failureCode, message);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.api;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event with the per-stage breakdown of a sampled HTTP request, see
+ * {@link RequestTiming}. Enable it with
+ * -XX:StartFlightRecording:settings=profile or a .jfc that turns on
+ * com.example.api.RequestTiming.
+ */
+@Name("com.example.api.RequestTiming")
+@Label("HTTP Request Timing")
+@Category({ "CRUD API", "HTTP" })
+@Description("Time spent per stage of a sampled HTTP request")
+@StackTrace(false)
+class RequestTimingEvent extends jdk.jfr.Event {
+
+    @Label("Request Id")
+    String requestId;
+
+    @Label("Method")
+    String method;
+
+    @Label("Route")
+    String route;
+
+    @Label("Status")
+    int status;
+
+    @Label("HTTP")
+    @Description("Router entry to the first event bus request")
+    @Timespan(Timespan.NANOSECONDS)
+    long http;
+
+    @Label("Event Bus")
+    @Description("Request/reply transfer, excluding queueing and handling on the master")
+    @Timespan(Timespan.NANOSECONDS)
+    long bus;
+
+    @Label("Master Queue")
+    @Description("Send to start of handling on the master")
+    @Timespan(Timespan.NANOSECONDS)
+    long queue;
+
+    @Label("Master")
+    @Description("Handling on the master, receipt to reply")
+    @Timespan(Timespan.NANOSECONDS)
+    long master;
+
+    @Label("Mongo")
+    @Description("Mongo operations, on the master or in the HTTP verticle")
+    @Timespan(Timespan.NANOSECONDS)
+    long mongo;
+
+    @Label("Encode")
+    @Description("JSON encoding of the response")
+    @Timespan(Timespan.NANOSECONDS)
+    long encode;
+}
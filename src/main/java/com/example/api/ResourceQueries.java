@@ -0,0 +1,244 @@
+package com.example.api;
+
+import com.mongodb.client.model.CollationStrength;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.CollationOptions;
+import io.vertx.ext.mongo.CountOptions;
+import io.vertx.ext.mongo.FindOptions;
+import io.vertx.ext.mongo.IndexModel;
+import io.vertx.ext.mongo.IndexOptions;
+import io.vertx.ext.mongo.MongoClient;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Translation of list/export query parameters into Mongo queries, so every
+ * endpoint that accepts a filter interprets it the same way, and the indexes
+ * those queries are planned against.
+ *
+ * A filter is field:value on an allow-listed field:
+ * - name:Widget or category:tools is a case-insensitive exact match
+ * - name:Wid* is a case-insensitive prefix match
+ * - text:red widget is a full-text search over name and description
+ *
+ * Exact and prefix matches run with the same case-insensitive collation as
+ * the name and category indexes, and a prefix becomes an anchored range
+ * rather than a regex, so both are index range scans. A regex can't use a
+ * collated index, and a case-insensitive one can't bound its scan at all.
+ */
+public final class ResourceQueries {
+
+    public static final String COLLECTION = "resources";
+
+    /**
+     * Fields that may be filtered on, besides the text pseudo-field
+     */
+    public static final Set<String> FILTER_FIELDS = Set.of("name", "category");
+
+    public static final String TEXT_FIELD = "text";
+
+    static final String NAME_INDEX = "name_ci";
+    static final String CATEGORY_INDEX = "category_ci";
+    static final String TEXT_INDEX = "name_description_text";
+
+    private static final int MAX_VALUE_LENGTH = 256;
+
+    // Sorts after every other character in ICU collations, so it closes a prefix range
+    private static final String RANGE_END = "\uffff";
+
+    /**
+     * Kinds of plan, by how the filter is matched
+     */
+    public enum Kind {
+        ALL, EXACT, PREFIX, TEXT;
+
+        final String label = name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A parsed filter: the Mongo query, whether it needs the case-insensitive
+     * collation, and the index it is meant to use
+     */
+    public static final class Plan {
+        public final Kind kind;
+        public final String field;
+        public final JsonObject query;
+        private final boolean collated;
+
+        private Plan(Kind kind, String field, JsonObject query, boolean collated) {
+            this.kind = kind;
+            this.field = field;
+            this.query = query;
+            this.collated = collated;
+        }
+
+        /**
+         * Set the plan's collation on find options
+         */
+        public FindOptions apply(FindOptions options) {
+            return collated ? options.setCollation(caseInsensitive()) : options;
+        }
+
+        /**
+         * Count options with the plan's collation, or null when none is needed
+         */
+        public CountOptions countOptions() {
+            return collated ? new CountOptions().setCollation(caseInsensitive()) : null;
+        }
+
+        /**
+         * Name of the index the plan is meant to use, or null for a scan
+         */
+        public String index() {
+            return switch (kind) {
+                case ALL -> null;
+                case TEXT -> TEXT_INDEX;
+                default -> "name".equals(field) ? NAME_INDEX : CATEGORY_INDEX;
+            };
+        }
+
+        /**
+         * The find command to explain, in the shape the server expects
+         */
+        JsonObject findCommand(JsonObject sort, int limit) {
+            JsonObject find = new JsonObject()
+                    .put("find", COLLECTION)
+                    .put("filter", query)
+                    .put("sort", sort)
+                    .put("limit", limit);
+            if (collated) {
+                find.put("collation", caseInsensitive().toJson());
+            }
+            return find;
+        }
+
+        public JsonObject toJson() {
+            return new JsonObject()
+                    .put("kind", kind.label)
+                    .put("field", field)
+                    .put("query", query)
+                    .put("collation", collated ? caseInsensitive().toJson() : null)
+                    .put("expectedIndex", index());
+        }
+    }
+
+    private ResourceQueries() {
+    }
+
+    /**
+     * Collation of the name and category indexes: English, ignoring case
+     */
+    static CollationOptions caseInsensitive() {
+        return new CollationOptions().setLocale("en").setStrength(CollationStrength.SECONDARY);
+    }
+
+    /**
+     * Parse a filter parameter; null or blank matches everything. Throws
+     * IllegalArgumentException for malformed filters and fields that are not
+     * allow-listed.
+     */
+    public static Plan plan(String filter) {
+        if (filter == null || filter.isBlank()) {
+            return new Plan(Kind.ALL, null, new JsonObject(), false);
+        }
+        int colon = filter.indexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Filter must be field:value");
+        }
+        String field = filter.substring(0, colon).trim();
+        String value = filter.substring(colon + 1).trim();
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("Filter value must not be empty");
+        }
+        if (value.length() > MAX_VALUE_LENGTH) {
+            throw new IllegalArgumentException("Filter value is longer than " + MAX_VALUE_LENGTH + " characters");
+        }
+        if (TEXT_FIELD.equals(field)) {
+            return new Plan(Kind.TEXT, field,
+                    new JsonObject().put("$text", new JsonObject().put("$search", value)), false);
+        }
+        if (!FILTER_FIELDS.contains(field)) {
+            throw new IllegalArgumentException("Cannot filter on '" + field + "'; allowed: name, category, text");
+        }
+        if (value.endsWith("*")) {
+            String prefix = value.substring(0, value.length() - 1);
+            if (prefix.isEmpty() || prefix.contains("*")) {
+                throw new IllegalArgumentException("Prefix filter must be field:prefix*");
+            }
+            return new Plan(Kind.PREFIX, field, new JsonObject().put(field, new JsonObject()
+                    .put("$gte", prefix)
+                    .put("$lt", prefix + RANGE_END)), true);
+        }
+        return new Plan(Kind.EXACT, field, new JsonObject().put(field, value), true);
+    }
+
+    /**
+     * Create the indexes the planner relies on, if missing. Text indexes
+     * don't support collations, so the text index has none.
+     */
+    public static Future<Void> ensureIndexes(MongoClient mongo) {
+        List<IndexModel> indexes = List.of(
+                new IndexModel(new JsonObject().put("name", 1),
+                        new IndexOptions().name(NAME_INDEX).setCollation(caseInsensitive())),
+                new IndexModel(new JsonObject().put("category", 1),
+                        new IndexOptions().name(CATEGORY_INDEX).setCollation(caseInsensitive())),
+                new IndexModel(new JsonObject().put("name", "text").put("description", "text"),
+                        new IndexOptions().name(TEXT_INDEX)
+                                .weights(new JsonObject().put("name", 5).put("description", 1))));
+        return Metrics.getInstance().mongo("createIndexes", () -> mongo.createIndexes(COLLECTION, indexes));
+    }
+
+    /**
+     * Ask the server how it would run a filtered, sorted page: the winning
+     * plan's stages and the index used, if any
+     */
+    public static Future<JsonObject> explain(MongoClient mongo, Plan plan, PageCursor.Sort sort, int limit) {
+        JsonObject command = new JsonObject()
+                .put("explain", plan.findCommand(sort.toJson(), limit + 1))
+                .put("verbosity", "queryPlanner");
+        return Metrics.getInstance().mongo("runCommand", () -> mongo.runCommand("explain", command)).map(reply -> {
+            JsonObject winning = reply.getJsonObject("queryPlanner", new JsonObject())
+                    .getJsonObject("winningPlan", new JsonObject());
+            JsonObject summary = new JsonObject();
+            summarize(winning, summary);
+            return plan.toJson()
+                    .put("sort", sort.toJson())
+                    .put("stages", summary.getJsonArray("stages"))
+                    .put("index", summary.getString("index"))
+                    .put("usesIndex", summary.getString("index") != null)
+                    .put("winningPlan", winning);
+        });
+    }
+
+    /**
+     * Collect stage names top-down and the first index name from a plan tree
+     */
+    private static void summarize(JsonObject stage, JsonObject summary) {
+        if (stage == null || stage.isEmpty()) {
+            return;
+        }
+        // Newer servers wrap the plan in a queryPlan element
+        JsonObject inner = stage.getJsonObject("queryPlan");
+        if (inner != null) {
+            summarize(inner, summary);
+            return;
+        }
+        if (!summary.containsKey("stages")) {
+            summary.put("stages", new JsonArray());
+        }
+        summary.getJsonArray("stages").add(stage.getString("stage"));
+        if (summary.getString("index") == null && stage.getString("indexName") != null) {
+            summary.put("index", stage.getString("indexName"));
+        }
+        summarize(stage.getJsonObject("inputStage"), summary);
+        JsonArray inputs = stage.getJsonArray("inputStages");
+        if (inputs != null) {
+            for (int i = 0; i < inputs.size(); i++) {
+                summarize(inputs.getJsonObject(i), summary);
+            }
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package com.example.api;
 
-import io.vertx.core.json.Json;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
 
@@ -13,19 +13,32 @@ public class RouterUtility {
      * Send a JSON response with status code 200
      */
     public static void sendJsonResponse(RoutingContext ctx, Object data) {
-        ctx.response()
-                .putHeader("content-type", "application/json")
-                .end(Json.encodePrettily(data));
+        sendJsonResponse(ctx, 200, data);
     }
 
     /**
      * Send a JSON response with custom status code
      */
     public static void sendJsonResponse(RoutingContext ctx, int statusCode, Object data) {
+        RequestTiming timing = RequestTiming.sampled();
+        long started = timing == null ? 0 : System.nanoTime();
+        Buffer body = JsonBufferEncoder.encode(data, wantsPretty(ctx));
+        if (timing != null) {
+            timing.add(RequestTiming.Stage.ENCODE, System.nanoTime() - started);
+        }
         ctx.response()
                 .setStatusCode(statusCode)
                 .putHeader("content-type", "application/json")
-                .end(Json.encodePrettily(data));
+                .end(body);
+    }
+
+    /**
+     * Send an already-encoded JSON body with status code 200
+     */
+    public static void sendJsonBuffer(RoutingContext ctx, Buffer body) {
+        ctx.response()
+                .putHeader("content-type", "application/json")
+                .end(body);
     }
 
     /**
@@ -36,7 +49,19 @@ public class RouterUtility {
         ctx.response()
                 .setStatusCode(statusCode)
                 .putHeader("content-type", "application/json")
-                .end(error.encodePrettily());
+                .end(JsonBufferEncoder.encode(error, wantsPretty(ctx)));
+    }
+
+    /**
+     * Pretty output is opt-in via ?pretty=true or an Accept parameter such as
+     * "application/json; pretty=true"; everything else is sent compact
+     */
+    public static boolean wantsPretty(RoutingContext ctx) {
+        if ("true".equalsIgnoreCase(ctx.request().getParam("pretty"))) {
+            return true;
+        }
+        String accept = ctx.request().getHeader("Accept");
+        return accept != null && accept.contains("pretty=true");
     }
 
     /**
@@ -53,6 +78,15 @@ public class RouterUtility {
         sendErrorResponse(ctx, 400, message);
     }
 
+    /**
+     * Send a service unavailable response (503) with Retry-After, for requests
+     * shed by admission control
+     */
+    public static void sendOverloaded(RoutingContext ctx, String message) {
+        ctx.response().putHeader("Retry-After", Integer.toString(AdaptiveLimiter.retryAfterSeconds()));
+        sendErrorResponse(ctx, 503, message);
+    }
+
     /**
      * Send a not found response (404) with error message
      */
@@ -86,12 +120,27 @@ public class RouterUtility {
         }
     }
 
+    /**
+     * Page size when none (or one below 1) is requested, and the largest served
+     */
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int MAX_LIMIT = 100;
+
+    /**
+     * Page size to serve for a requested one
+     */
+    public static int clampLimit(int limit) {
+        if (limit < 1)
+            return DEFAULT_LIMIT;
+        return Math.min(limit, MAX_LIMIT);
+    }
+
     /**
      * Parse and validate pagination parameters
      */
     public static PaginationParams parsePaginationParams(RoutingContext ctx) {
         int page = 1;
-        int limit = 10;
+        int limit = DEFAULT_LIMIT;
 
         String pageParam = ctx.request().getParam("page");
         String limitParam = ctx.request().getParam("limit");
@@ -108,29 +157,46 @@ public class RouterUtility {
 
         if (limitParam != null) {
             try {
-                limit = Integer.parseInt(limitParam);
-                if (limit < 1)
-                    limit = 10;
+                limit = clampLimit(Integer.parseInt(limitParam));
             } catch (NumberFormatException e) {
                 throw new IllegalArgumentException("Invalid limit number");
             }
         }
 
-        return new PaginationParams(page, limit);
+        PageCursor.Sort sort = PageCursor.Sort.parse(ctx.request().getParam("sort"));
+        PageCursor cursor = null;
+        String cursorParam = ctx.request().getParam("cursor");
+        if (cursorParam != null && !cursorParam.isEmpty()) {
+            cursor = PageCursor.decode(cursorParam);
+            if (!cursor.sort.matches(sort)) {
+                throw new IllegalArgumentException("Cursor does not match the requested sort");
+            }
+        }
+
+        return new PaginationParams(page, limit, sort, cursor);
     }
 
     /**
-     * pagination parameters
+     * pagination parameters; when a cursor is present the page is ignored and the
+     * next page is located by keyset instead of skip
      */
     public static class PaginationParams {
         public final int page;
         public final int limit;
         public final int skip;
+        public final PageCursor.Sort sort;
+        public final PageCursor cursor;
 
         public PaginationParams(int page, int limit) {
+            this(page, limit, PageCursor.Sort.DEFAULT, null);
+        }
+
+        public PaginationParams(int page, int limit, PageCursor.Sort sort, PageCursor cursor) {
             this.page = page;
             this.limit = limit;
             this.skip = (page - 1) * limit;
+            this.sort = sort;
+            this.cursor = cursor;
         }
     }
 }
@@ -0,0 +1,181 @@
+package com.example.api;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
+import io.vertx.core.json.JsonObject;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fan-out mode for resource.lookup: asks every cluster node in parallel and
+ * keeps the newest version. The lookup completes as soon as quorum nodes
+ * have answered (found or not found), or when every node has answered or
+ * failed, instead of waiting for the slowest one. Reply latency is recorded
+ * per node.
+ */
+public final class ScatterGatherLookup {
+
+    private static final ConcurrentHashMap<String, NodeLatency> latencies = new ConcurrentHashMap<>();
+
+    private ScatterGatherLookup() {
+    }
+
+    /**
+     * Parse a quorum parameter ("all", "majority" or a count) for the given
+     * number of nodes
+     */
+    public static int quorum(String param, int nodes) {
+        if (param == null || param.isEmpty() || "all".equalsIgnoreCase(param)) {
+            return nodes;
+        }
+        if ("majority".equalsIgnoreCase(param)) {
+            return nodes / 2 + 1;
+        }
+        int quorum = Integer.parseInt(param);
+        if (quorum < 1) {
+            throw new NumberFormatException("quorum must be at least 1");
+        }
+        return Math.min(quorum, nodes);
+    }
+
+    /**
+     * Look the id up on every node; fails with a 404 ReplyException when the
+     * answering nodes don't have it
+     */
+    public static Future<JsonObject> lookup(Vertx vertx, String id, String quorumParam, long timeoutMillis) {
+        List<String> nodes = ClusterMembership.getInstance().nodes();
+        if (nodes.isEmpty()) {
+            // Not clustered: a single shared-address request
+            return CrudClient.getInstance().requestNode(vertx, "resource.lookup", null, id,
+                    new DeliveryOptions().setSendTimeout(timeoutMillis))
+                    .map(reply -> (JsonObject) reply.body());
+        }
+        int quorum = quorum(quorumParam, nodes.size());
+        Gather gather = new Gather(nodes.size(), quorum);
+        for (String node : nodes) {
+            long started = System.nanoTime();
+            CrudClient.getInstance().requestNode(vertx, "resource.lookup", node, id,
+                    new DeliveryOptions().setSendTimeout(timeoutMillis))
+                    .onComplete(ar -> {
+                        long nanos = System.nanoTime() - started;
+                        NodeLatency latency = latencies.computeIfAbsent(node, k -> new NodeLatency());
+                        if (ar.succeeded()) {
+                            latency.record(nanos, false);
+                            gather.found((JsonObject) ar.result().body());
+                        } else if (ar.cause() instanceof ReplyException re && re.failureCode() == 404) {
+                            latency.record(nanos, false);
+                            gather.notFound();
+                        } else {
+                            latency.record(nanos, true);
+                            gather.failed(ar.cause());
+                        }
+                    });
+        }
+        return gather.promise.future();
+    }
+
+    /**
+     * Per-node reply latency, for spotting slow nodes
+     */
+    public static JsonObject stats() {
+        JsonObject stats = new JsonObject();
+        latencies.forEach((node, latency) -> stats.put(node, latency.toJson()));
+        return stats;
+    }
+
+    /**
+     * Replies of one lookup; only touched from the requesting context
+     */
+    private static final class Gather {
+        final Promise<JsonObject> promise = Promise.promise();
+        final int nodes;
+        final int quorum;
+        int answered;
+        int failed;
+        JsonObject newest;
+        Throwable lastError;
+
+        Gather(int nodes, int quorum) {
+            this.nodes = nodes;
+            this.quorum = quorum;
+        }
+
+        void found(JsonObject reply) {
+            if (newest == null || version(reply) > version(newest)) {
+                newest = reply;
+            }
+            answered++;
+            check();
+        }
+
+        void notFound() {
+            answered++;
+            check();
+        }
+
+        void failed(Throwable err) {
+            failed++;
+            lastError = err;
+            check();
+        }
+
+        private void check() {
+            if (answered < quorum && answered + failed < nodes) {
+                return;
+            }
+            if (newest != null) {
+                promise.tryComplete(newest.copy()
+                        .put("replies", answered)
+                        .put("quorum", quorum)
+                        .put("nodes", nodes));
+            } else if (answered > 0) {
+                promise.tryFail(new ReplyException(ReplyFailure.RECIPIENT_FAILURE, 404, "Resource not found"));
+            } else {
+                promise.tryFail(lastError);
+            }
+        }
+
+        /**
+         * Hybrid logical clock timestamp of a reply, or its wall-clock time for
+         * nodes that don't send one
+         */
+        private static long version(JsonObject reply) {
+            Long hlc = reply.getLong("hlc");
+            return hlc != null ? hlc
+                    : HybridLogicalClock.fromMillis(Instant.parse(reply.getString("timestamp")).toEpochMilli());
+        }
+    }
+
+    private static final class NodeLatency {
+        long replies;
+        long failures;
+        long totalNanos;
+        long maxNanos;
+        long lastNanos;
+
+        synchronized void record(long nanos, boolean failure) {
+            if (failure) {
+                failures++;
+            } else {
+                replies++;
+                totalNanos += nanos;
+                maxNanos = Math.max(maxNanos, nanos);
+                lastNanos = nanos;
+            }
+        }
+
+        synchronized JsonObject toJson() {
+            return new JsonObject()
+                    .put("replies", replies)
+                    .put("failures", failures)
+                    .put("avgMs", replies == 0 ? 0.0 : totalNanos / 1e6 / replies)
+                    .put("maxMs", maxNanos / 1e6)
+                    .put("lastMs", lastNanos / 1e6);
+        }
+    }
+}
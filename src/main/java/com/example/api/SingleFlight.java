@@ -0,0 +1,57 @@
+package com.example.api;
+
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical reads: callers asking for a key that is
+ * already being loaded share the in-flight Future instead of starting another
+ * query. Writers call {@link #forget} so reads arriving after a write never join
+ * a load that started before it.
+ *
+ * Not thread-safe: owned by one verticle and used on its event loop.
+ */
+public class SingleFlight<V> {
+
+    private final Map<String, Future<V>> inFlight = new HashMap<>();
+
+    private long loads;
+    private long shared;
+
+    /**
+     * Join the in-flight load for the key, or start one with the loader
+     */
+    public Future<V> run(String key, Supplier<Future<V>> loader) {
+        Future<V> existing = inFlight.get(key);
+        if (existing != null) {
+            shared++;
+            return existing;
+        }
+        loads++;
+        Future<V> future = loader.get();
+        inFlight.put(key, future);
+        future.onComplete(ar -> inFlight.remove(key, future));
+        return future;
+    }
+
+    /**
+     * Detach the in-flight load for a key; current waiters still get its result
+     */
+    public void forget(String key) {
+        inFlight.remove(key);
+    }
+
+    public void forgetAll() {
+        inFlight.clear();
+    }
+
+    public JsonObject stats() {
+        return new JsonObject()
+                .put("inFlight", inFlight.size())
+                .put("loads", loads)
+                .put("shared", shared);
+    }
+}
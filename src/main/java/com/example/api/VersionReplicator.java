@@ -0,0 +1,287 @@
+package com.example.api;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replicates the JVM's {@link VersionStore} to every other node as a
+ * last-writer-wins map ordered by hybrid logical clock timestamps.
+ *
+ * Local writes are queued and published in batches on
+ * {@link #DELTA_ADDRESS}; receivers merge each delta, keeping the newer
+ * version. Deltas lost in transit (or written while a node was away) are
+ * repaired by anti-entropy: every antiEntropyIntervalMs a random peer is sent
+ * our Merkle root; if it differs the peer returns the hashes of
+ * {@value #RANGES} runs of leaves, we send our leaf hashes for the runs that
+ * differ, the peer returns its entries for the leaves that differ, and we
+ * merge them and send ours for the same leaves. Entries are found through the
+ * digest's per-leaf key index, so a round costs in proportion to the
+ * differing leaves, not the store.
+ *
+ * Config:
+ * - replication: enable replication (default false)
+ * - replicationBatchMs: delta flush interval (default 50)
+ * - replicationMaxBatch: deltas per message (default 500)
+ * - antiEntropyIntervalMs: repair interval (default 30000)
+ * - hlcMaxDriftMs: how far ahead of the local clock a replicated timestamp
+ *   may be before it is dropped (default 60000)
+ */
+public class VersionReplicator {
+
+    public static final String DELTA_ADDRESS = "resource.replicate";
+    private static final String DIGEST_ADDRESS = "resource.antientropy";
+    private static final String SYNC_ADDRESS = "resource.antientropy.sync";
+    private static final String REPAIR_ADDRESS = "resource.antientropy.repair";
+    private static final int RANGES = 32;
+
+    private static final AtomicBoolean started = new AtomicBoolean();
+    private static volatile VersionReplicator instance;
+
+    private final Vertx vertx;
+    private final VersionStore store;
+    private final String replicaId = UUID.randomUUID().toString();
+    private final int maxBatch;
+    private final ConcurrentLinkedQueue<JsonObject> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    private final AtomicLong deltasSent = new AtomicLong();
+    private final AtomicLong batchesSent = new AtomicLong();
+    private final AtomicLong deltasApplied = new AtomicLong();
+    private final AtomicLong deltasIgnored = new AtomicLong();
+    private final AtomicLong antiEntropyRounds = new AtomicLong();
+    private final AtomicLong antiEntropyInSync = new AtomicLong();
+    private final AtomicLong repairedEntries = new AtomicLong();
+    private final AtomicLong repairedLeaves = new AtomicLong();
+
+    private VersionReplicator(Vertx vertx, VersionStore store, int maxBatch) {
+        this.vertx = vertx;
+        this.store = store;
+        this.maxBatch = maxBatch;
+    }
+
+    /**
+     * Start replication once per JVM when the config enables it
+     */
+    public static void start(Vertx vertx, JsonObject config) {
+        if (!config.getBoolean("replication", false) || !started.compareAndSet(false, true)) {
+            return;
+        }
+        VersionReplicator replicator = new VersionReplicator(vertx, VersionStore.getInstance(),
+                config.getInteger("replicationMaxBatch", 500));
+        replicator.register(config.getLong("replicationBatchMs", 50L), config.getLong("antiEntropyIntervalMs", 30_000L));
+        VersionStore.getInstance().setReplicator(replicator);
+        instance = replicator;
+    }
+
+    /**
+     * Whether this JVM replicates its version store, so reads and writes can be
+     * served locally
+     */
+    public static boolean isEnabled() {
+        return instance != null;
+    }
+
+    /**
+     * Replication counters, or null when disabled
+     */
+    public static JsonObject statsOrNull() {
+        VersionReplicator replicator = instance;
+        return replicator == null ? null : replicator.stats();
+    }
+
+    private void register(long batchMillis, long antiEntropyMillis) {
+        vertx.eventBus().<JsonObject>consumer(DELTA_ADDRESS, msg -> {
+            if (!replicaId.equals(msg.body().getString("origin"))) {
+                apply(msg.body().getJsonArray("entries"));
+            }
+        });
+        vertx.setPeriodic(batchMillis, t -> flush());
+
+        String nodeId = ClusterMembership.getInstance().nodeId();
+        if (nodeId == null) {
+            // Not clustered: nobody to compare digests with
+            return;
+        }
+        // Digest comparison: equal roots end the round, otherwise return our range hashes
+        vertx.eventBus().<JsonObject>consumer(ClusterMembership.address(DIGEST_ADDRESS, nodeId), msg -> {
+            MerkleDigest digest = store.digest();
+            if (digest.root() == msg.body().getLong("root")) {
+                msg.reply(new JsonObject().put("inSync", true));
+            } else {
+                msg.reply(new JsonObject().put("ranges", toJson(digest.ranges(RANGES))), CrudMessageCodec.options());
+            }
+        });
+        // Leaf comparison: return our entries for the leaves whose hashes differ from the peer's
+        vertx.eventBus().<JsonObject>consumer(ClusterMembership.address(SYNC_ADDRESS, nodeId), msg -> {
+            JsonArray leaves = msg.body().getJsonArray("leaves");
+            long[] theirs = fromJson(msg.body().getJsonArray("hashes"));
+            long[] mine = store.digest().leaves();
+            List<Integer> differing = new ArrayList<>();
+            for (int i = 0; i < leaves.size(); i++) {
+                int leaf = leaves.getInteger(i);
+                if (leaf >= 0 && leaf < mine.length && mine[leaf] != theirs[i]) {
+                    differing.add(leaf);
+                }
+            }
+            msg.reply(new JsonObject()
+                    .put("leaves", new JsonArray(new ArrayList<>(differing)))
+                    .put("entries", entriesIn(differing)), CrudMessageCodec.options());
+        });
+        // Repair: merge the peer's entries for the differing leaves
+        vertx.eventBus().<JsonObject>consumer(ClusterMembership.address(REPAIR_ADDRESS, nodeId), msg ->
+                apply(msg.body().getJsonArray("entries")).onComplete(ar -> {
+                    if (ar.succeeded()) {
+                        repairedEntries.addAndGet(ar.result());
+                        msg.reply(new JsonObject().put("applied", ar.result()));
+                    } else {
+                        msg.fail(500, "Merge failed: " + ar.cause().getMessage());
+                    }
+                }));
+        vertx.setPeriodic(antiEntropyMillis, t -> antiEntropy(nodeId));
+    }
+
+    void enqueue(String key, VersionStore.Version version) {
+        pending.add(entry(key, version));
+        if (pendingCount.incrementAndGet() >= maxBatch) {
+            vertx.runOnContext(v -> flush());
+        }
+    }
+
+    private void flush() {
+        while (pendingCount.get() > 0) {
+            JsonArray batch = new JsonArray();
+            JsonObject entry;
+            while (batch.size() < maxBatch && (entry = pending.poll()) != null) {
+                pendingCount.decrementAndGet();
+                batch.add(entry);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            vertx.eventBus().publish(DELTA_ADDRESS,
+                    new JsonObject().put("origin", replicaId).put("entries", batch), CrudMessageCodec.options());
+            deltasSent.addAndGet(batch.size());
+            batchesSent.incrementAndGet();
+        }
+    }
+
+    /**
+     * Merge entries; completes with how many were newer than ours
+     */
+    private Future<Integer> apply(JsonArray entries) {
+        return store.merge(entries)
+                .onSuccess(applied -> {
+                    deltasApplied.addAndGet(applied);
+                    deltasIgnored.addAndGet(entries.size() - applied);
+                })
+                .onFailure(err -> System.err.println("[VersionReplicator] Merge failed: " + err.getMessage()));
+    }
+
+    private void antiEntropy(String nodeId) {
+        List<String> peers = new ArrayList<>(ClusterMembership.getInstance().nodes());
+        peers.remove(nodeId);
+        if (peers.isEmpty()) {
+            return;
+        }
+        String peer = peers.get(ThreadLocalRandom.current().nextInt(peers.size()));
+        DeliveryOptions options = CrudMessageCodec.options().setSendTimeout(10_000);
+        antiEntropyRounds.incrementAndGet();
+        vertx.eventBus().<JsonObject>request(ClusterMembership.address(DIGEST_ADDRESS, peer),
+                new JsonObject().put("root", store.digest().root()), options)
+                .compose(reply -> {
+                    if (reply.body().getBoolean("inSync", false)) {
+                        antiEntropyInSync.incrementAndGet();
+                        return Future.succeededFuture();
+                    }
+                    MerkleDigest digest = store.digest();
+                    long[] theirs = fromJson(reply.body().getJsonArray("ranges"));
+                    List<Integer> ranges = MerkleDigest.diff(digest.ranges(RANGES), theirs);
+                    if (ranges.isEmpty()) {
+                        return Future.succeededFuture();
+                    }
+                    // Our hashes for every leaf of the differing ranges
+                    long[] mine = digest.leaves();
+                    int width = digest.rangeWidth(RANGES);
+                    JsonArray leaves = new JsonArray();
+                    JsonArray hashes = new JsonArray();
+                    for (int range : ranges) {
+                        for (int leaf = range * width; leaf < Math.min(mine.length, (range + 1) * width); leaf++) {
+                            leaves.add(leaf);
+                            hashes.add(mine[leaf]);
+                        }
+                    }
+                    return vertx.eventBus().<JsonObject>request(ClusterMembership.address(SYNC_ADDRESS, peer),
+                            new JsonObject().put("leaves", leaves).put("hashes", hashes), options)
+                            .compose(syncReply -> {
+                                List<Integer> differing = new ArrayList<>();
+                                syncReply.body().getJsonArray("leaves").forEach(leaf -> differing.add((Integer) leaf));
+                                if (differing.isEmpty()) {
+                                    return Future.succeededFuture();
+                                }
+                                repairedLeaves.addAndGet(differing.size());
+                                // Ours as they were before merging theirs, so theirs aren't echoed back
+                                JsonArray ours = entriesIn(differing);
+                                return apply(syncReply.body().getJsonArray("entries"))
+                                        .onSuccess(applied -> repairedEntries.addAndGet(applied))
+                                        .compose(applied -> vertx.eventBus().request(
+                                                ClusterMembership.address(REPAIR_ADDRESS, peer),
+                                                new JsonObject().put("entries", ours), options))
+                                        .mapEmpty();
+                            });
+                })
+                .onFailure(err -> System.err.println("[VersionReplicator] Anti-entropy with " + peer + " failed: "
+                        + err.getMessage()));
+    }
+
+    private JsonArray entriesIn(List<Integer> leaves) {
+        JsonArray entries = new JsonArray();
+        store.forEachLatestIn(leaves, (key, latest) -> entries.add(entry(key, latest)));
+        return entries;
+    }
+
+    private static JsonObject entry(String key, VersionStore.Version version) {
+        return new JsonObject().put("k", key).put("v", version.value).put("t", version.hlc);
+    }
+
+    private static JsonArray toJson(long[] values) {
+        JsonArray array = new JsonArray();
+        for (long value : values) {
+            array.add(value);
+        }
+        return array;
+    }
+
+    private static long[] fromJson(JsonArray array) {
+        long[] values = new long[array.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = array.getLong(i);
+        }
+        return values;
+    }
+
+    public JsonObject stats() {
+        return new JsonObject()
+                .put("replicaId", replicaId)
+                .put("pending", pendingCount.get())
+                .put("deltasSent", deltasSent.get())
+                .put("batchesSent", batchesSent.get())
+                .put("deltasApplied", deltasApplied.get())
+                .put("deltasIgnored", deltasIgnored.get())
+                .put("antiEntropyRounds", antiEntropyRounds.get())
+                .put("antiEntropyInSync", antiEntropyInSync.get())
+                .put("repairedEntries", repairedEntries.get())
+                .put("repairedLeaves", repairedLeaves.get())
+                .put("merkleRoot", store.digest().root());
+    }
+}
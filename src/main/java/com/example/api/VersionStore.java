@@ -0,0 +1,440 @@
+package com.example.api;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Versioned key/value store behind resource.store / resource.lookup, shared by
+ * all MainVerticle instances in the JVM.
+ *
+ * Versions are stamped by a {@link HybridLogicalClock}, so per key they are
+ * strictly increasing and the latest version is always the tail, read
+ * lock-free from a volatile field. Writes to a key are serialized on one of a
+ * fixed set of lock stripes. Together with {@link #merge} this makes the store
+ * a last-writer-wins map that {@link VersionReplicator} keeps in sync across
+ * nodes; a {@link MerkleDigest} of the latest versions is maintained for
+ * anti-entropy.
+ *
+ * Retention: at most maxVersions per key, trimmed on write; versions older than
+ * maxAgeMillis are dropped by periodic compaction. The latest version of a key
+ * is never dropped by age.
+ *
+ * With versionStorage=mmap the versions live in a {@link MappedVersionLog}
+ * instead of on the heap and survive restarts. Writes then run one at a time
+ * on a dedicated worker thread, so event-loop callers never wait on the log's
+ * files; the returned futures complete back on the caller's context. Reads
+ * stay synchronous.
+ */
+public class VersionStore {
+
+    private static VersionStore instance;
+
+    private final ConcurrentHashMap<String, History> histories = new ConcurrentHashMap<>();
+    private final AtomicBoolean compactionStarted = new AtomicBoolean();
+    private Future<Void> opened;
+    private volatile MappedVersionLog log;
+    private volatile WorkerExecutor writer;
+    private Vertx vertx;
+    private volatile VersionReplicator replicator;
+
+    private final HybridLogicalClock clock = new HybridLogicalClock();
+    private final MerkleDigest digest = new MerkleDigest(1024);
+    private final Object[] stripes = new Object[64];
+
+    private volatile int maxVersions = 100;
+    private volatile long maxAgeMillis;
+
+    private final AtomicLong trimmed = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong compactions = new AtomicLong();
+    private final AtomicLong skewRejected = new AtomicLong();
+
+    private VersionStore() {
+        // Private constructor for singleton pattern
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    /**
+     * Get singleton instance of VersionStore
+     */
+    public static VersionStore getInstance() {
+        if (instance == null) {
+            synchronized (VersionStore.class) {
+                if (instance == null) {
+                    instance = new VersionStore();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Apply retention settings from verticle config, start compaction and, in
+     * mmap mode, open and recover the log; the storage mode is fixed by the
+     * first call in the JVM
+     */
+    public synchronized Future<Void> configure(Vertx vertx, JsonObject config) {
+        maxVersions = Math.max(1, config.getInteger("versionRetentionCount", 100));
+        maxAgeMillis = config.getLong("versionMaxAgeMs", 0L);
+        long interval = config.getLong("versionCompactionIntervalMs", 60_000L);
+        clock.setMaxDriftMillis(config.getLong("hlcMaxDriftMs", HybridLogicalClock.DEFAULT_MAX_DRIFT_MILLIS));
+        if (maxAgeMillis > 0 && compactionStarted.compareAndSet(false, true)) {
+            vertx.setPeriodic(interval, t -> vertx.executeBlocking(() -> {
+                compact(System.currentTimeMillis());
+                return null;
+            }, false));
+        }
+        if (log != null) {
+            log.setMaxVersions(maxVersions);
+        }
+        if (opened == null) {
+            opened = "mmap".equals(config.getString("versionStorage", "heap"))
+                    ? openLog(vertx, config)
+                    : Future.succeededFuture();
+        }
+        return opened;
+    }
+
+    private Future<Void> openLog(Vertx vertx, JsonObject config) {
+        MappedVersionLog mapped = new MappedVersionLog(
+                Path.of(config.getString("versionLogDir", "data/versions")),
+                config.getInteger("versionSegmentBytes", 64 * 1024 * 1024),
+                maxVersions);
+        long snapshotInterval = config.getLong("versionSnapshotIntervalMs", 60_000L);
+        long forceInterval = config.getLong("versionForceIntervalMs", 1000L);
+        this.vertx = vertx;
+        return vertx.executeBlocking(() -> {
+            long started = System.currentTimeMillis();
+            mapped.open();
+            rebuildDigest(mapped);
+            System.out.println("[VersionStore] Recovered " + mapped.stats().getLong("keys") + " keys from "
+                    + config.getString("versionLogDir", "data/versions") + " in "
+                    + (System.currentTimeMillis() - started) + " ms");
+            return null;
+        }).onSuccess(v -> {
+            writer = vertx.createSharedWorkerExecutor("version-log-writer", 1);
+            log = mapped;
+            vertx.setPeriodic(forceInterval, t -> vertx.executeBlocking(() -> {
+                mapped.force();
+                return null;
+            }, false));
+            vertx.setPeriodic(snapshotInterval, t -> vertx.executeBlocking(() -> {
+                mapped.snapshot();
+                return null;
+            }, false).onFailure(err -> System.err.println("[VersionStore] Snapshot failed: " + err.getMessage())));
+        }).mapEmpty();
+    }
+
+    void setReplicator(VersionReplicator replicator) {
+        this.replicator = replicator;
+    }
+
+    /**
+     * Append a local write stamped now; completes with the stored version, or
+     * fails if the log can't take it (oversized version, segment not mapped)
+     */
+    public Future<Version> append(String key, String value) {
+        return submit(() -> appendNow(key, value));
+    }
+
+    private Version appendNow(String key, String value) {
+        Version version;
+        synchronized (stripe(key)) {
+            Version previous = latest(key);
+            version = write(key, value, clock.now());
+            digest.replace(key, previous, version);
+        }
+        VersionReplicator r = replicator;
+        if (r != null) {
+            r.enqueue(key, version);
+        }
+        return version;
+    }
+
+    /**
+     * Apply versions written on other nodes, as {k: key, v: value, t: hlc}
+     * entries, where they are newer than the local latest (equal timestamps
+     * are broken by value); completes with the number applied. Versions
+     * stamped further ahead of our clock than hlcMaxDriftMs are dropped.
+     */
+    public Future<Integer> merge(JsonArray entries) {
+        return submit(() -> {
+            int applied = 0;
+            for (int i = 0; i < entries.size(); i++) {
+                JsonObject entry = entries.getJsonObject(i);
+                long hlc = entry.getLong("t");
+                if (!clock.accepts(hlc)) {
+                    skewRejected.incrementAndGet();
+                } else if (merge(entry.getString("k"), entry.getString("v"), hlc)) {
+                    applied++;
+                }
+            }
+            return applied;
+        });
+    }
+
+    private boolean merge(String key, String value, long hlc) {
+        clock.update(hlc);
+        synchronized (stripe(key)) {
+            Version previous = latest(key);
+            if (previous != null && (hlc < previous.hlc
+                    || (hlc == previous.hlc && String.valueOf(value).compareTo(String.valueOf(previous.value)) <= 0))) {
+                return false;
+            }
+            digest.replace(key, previous, write(key, value, hlc));
+            return true;
+        }
+    }
+
+    /**
+     * Run a write inline on the heap, or on the log's writer thread with
+     * mmap storage, and have a worker map the next segment once the current
+     * one is half full
+     */
+    private <T> Future<T> submit(Callable<T> write) {
+        WorkerExecutor w = writer;
+        if (w == null) {
+            try {
+                return Future.succeededFuture(write.call());
+            } catch (Exception e) {
+                return Future.failedFuture(e);
+            }
+        }
+        return w.executeBlocking(write, false).onSuccess(result -> {
+            MappedVersionLog mapped = log;
+            if (mapped.needsSpare()) {
+                vertx.executeBlocking(() -> {
+                    mapped.prepareSpare();
+                    return null;
+                }, false).onFailure(err -> System.err.println("[VersionStore] Preparing the next segment failed: "
+                        + err.getMessage()));
+            }
+        });
+    }
+
+    private Version write(String key, String value, long hlc) {
+        MappedVersionLog mapped = log;
+        if (mapped != null) {
+            return mapped.append(key, value, hlc);
+        }
+        return histories.computeIfAbsent(key, k -> new History()).append(value, hlc, maxVersions);
+    }
+
+    /**
+     * Visit the latest version of every key in the given digest leaves, via
+     * the digest's key index
+     */
+    public void forEachLatestIn(Iterable<Integer> leaves, BiConsumer<String, Version> visitor) {
+        for (int leaf : leaves) {
+            for (String key : digest.keysIn(leaf)) {
+                Version latest = latest(key);
+                if (latest != null) {
+                    visitor.accept(key, latest);
+                }
+            }
+        }
+    }
+
+    /**
+     * Visit every key's latest version
+     */
+    public void forEachLatest(BiConsumer<String, Version> visitor) {
+        MappedVersionLog mapped = log;
+        if (mapped != null) {
+            for (String key : mapped.keys()) {
+                Version latest = mapped.latest(key);
+                if (latest != null) {
+                    visitor.accept(key, latest);
+                }
+            }
+            return;
+        }
+        histories.forEach((key, history) -> {
+            Version latest = history.latest;
+            if (latest != null) {
+                visitor.accept(key, latest);
+            }
+        });
+    }
+
+    public MerkleDigest digest() {
+        return digest;
+    }
+
+    /**
+     * Recompute the digest and advance the clock past everything stored, after
+     * recovering from disk. Our own past timestamps are trusted even if the
+     * wall clock has since gone back further than the max drift.
+     */
+    private void rebuildDigest(MappedVersionLog mapped) {
+        digest.clear();
+        for (String key : mapped.keys()) {
+            Version latest = mapped.latest(key);
+            if (latest != null) {
+                clock.observe(latest.hlc);
+                digest.replace(key, null, latest);
+            }
+        }
+    }
+
+    private Object stripe(String key) {
+        return stripes[Math.floorMod(key.hashCode(), stripes.length)];
+    }
+
+    /**
+     * Latest version or null, O(1) and lock-free
+     */
+    public Version latest(String key) {
+        MappedVersionLog mapped = log;
+        if (mapped != null) {
+            return mapped.latest(key);
+        }
+        History history = histories.get(key);
+        return history == null ? null : history.latest;
+    }
+
+    /**
+     * Up to limit versions, newest first; empty when the key is unknown
+     */
+    public List<Version> history(String key, int limit) {
+        MappedVersionLog mapped = log;
+        if (mapped != null) {
+            return mapped.history(key, limit);
+        }
+        History history = histories.get(key);
+        return history == null ? List.of() : history.newest(limit);
+    }
+
+    /**
+     * Drop versions older than the max age, keeping each key's latest
+     */
+    public void compact(long nowMillis) {
+        long maxAge = maxAgeMillis;
+        if (maxAge <= 0) {
+            return;
+        }
+        long cutoff = HybridLogicalClock.fromMillis(nowMillis - maxAge);
+        MappedVersionLog mapped = log;
+        if (mapped != null) {
+            expired.addAndGet(mapped.expire(cutoff));
+        }
+        histories.forEach((key, history) -> expired.addAndGet(history.expire(cutoff)));
+        compactions.incrementAndGet();
+    }
+
+    public JsonObject stats() {
+        MappedVersionLog mapped = log;
+        if (mapped != null) {
+            return mapped.stats()
+                    .put("maxVersions", maxVersions)
+                    .put("maxAgeMs", maxAgeMillis)
+                    .put("expired", expired.get())
+                    .put("compactions", compactions.get())
+                    .put("skewRejected", skewRejected.get());
+        }
+        long versions = 0;
+        for (History history : histories.values()) {
+            versions += history.size();
+        }
+        return new JsonObject()
+                .put("keys", histories.size())
+                .put("versions", versions)
+                .put("maxVersions", maxVersions)
+                .put("maxAgeMs", maxAgeMillis)
+                .put("trimmed", trimmed.get())
+                .put("expired", expired.get())
+                .put("compactions", compactions.get())
+                .put("skewRejected", skewRejected.get());
+    }
+
+    /**
+     * Encode versions for a history reply
+     */
+    public static JsonArray toJson(List<Version> versions) {
+        JsonArray array = new JsonArray();
+        for (Version version : versions) {
+            array.add(version.toJson());
+        }
+        return array;
+    }
+
+    /**
+     * One stored version
+     */
+    public static final class Version {
+        public final String value;
+        public final long hlc;
+
+        Version(String value, long hlc) {
+            this.value = value;
+            this.hlc = hlc;
+        }
+
+        /**
+         * ISO-8601 timestamp, as returned by the event bus API
+         */
+        public String timestamp() {
+            return HybridLogicalClock.toIso(hlc);
+        }
+
+        public JsonObject toJson() {
+            return new JsonObject().put("value", value).put("timestamp", timestamp()).put("hlc", hlc);
+        }
+    }
+
+    /**
+     * Versions of one key
+     */
+    private final class History {
+        private final ArrayDeque<Version> versions = new ArrayDeque<>(4);
+        volatile Version latest;
+
+        synchronized Version append(String value, long hlc, int max) {
+            Version version = new Version(value, hlc);
+            versions.addLast(version);
+            latest = version;
+            while (versions.size() > max) {
+                versions.removeFirst();
+                trimmed.incrementAndGet();
+            }
+            return version;
+        }
+
+        synchronized List<Version> newest(int limit) {
+            List<Version> result = new ArrayList<>(Math.min(limit, versions.size()));
+            Iterator<Version> it = versions.descendingIterator();
+            while (it.hasNext() && result.size() < limit) {
+                result.add(it.next());
+            }
+            return result;
+        }
+
+        synchronized int expire(long cutoff) {
+            int removed = 0;
+            while (versions.size() > 1 && versions.peekFirst().hlc < cutoff) {
+                versions.removeFirst();
+                removed++;
+            }
+            return removed;
+        }
+
+        synchronized int size() {
+            return versions.size();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.api.handlers;
+
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+import com.example.api.CrudClient;
+import com.example.api.CrudMessageCodec;
+import com.example.api.RouterUtility;
+import io.vertx.core.eventbus.ReplyException;
+
+public class BulkResourcesHandler {
+    public static void handle(RoutingContext ctx) {
+        JsonObject body;
+        try {
+            body = ctx.body().asJsonObject();
+        } catch (DecodeException | ClassCastException e) {
+            RouterUtility.sendBadRequest(ctx, "Body must be a JSON object with an operations array");
+            return;
+        }
+        CrudClient.getInstance().request(ctx.vertx(), "crud.bulk", body, CrudMessageCodec.options().setSendTimeout(30000))
+                .onSuccess(reply -> RouterUtility.sendJsonResponse(ctx, reply.body()))
+                .onFailure(err -> {
+                    if (err instanceof ReplyException re && re.failureCode() == 400)
+                        RouterUtility.sendBadRequest(ctx, re.getMessage());
+                    else if (err instanceof ReplyException re && re.failureCode() == 503)
+                        RouterUtility.sendOverloaded(ctx, re.getMessage());
+                    else
+                        RouterUtility.sendServerError(ctx, err.getMessage());
+                });
+    }
+}
@@ -1,18 +1,24 @@
 package com.example.api.handlers;
 
-import io.vertx.core.eventbus.DeliveryOptions;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
+import com.example.api.CrudClient;
+import com.example.api.CrudMessageCodec;
 import com.example.api.RouterUtility;
+import io.vertx.core.eventbus.ReplyException;
 
 public class CreateResourceHandler {
     public static void handle(RoutingContext ctx) {
         JsonObject body = ctx.body().asJsonObject();
-        ctx.vertx().eventBus().request("crud.create", body, new DeliveryOptions().setSendTimeout(10000))
+        // Without a partition key creates are spread round-robin over the masters
+        String partitionKey = ctx.request().getHeader("X-Partition-Key");
+        CrudClient.getInstance().request(ctx.vertx(), "crud.create", partitionKey, body, CrudMessageCodec.options().setSendTimeout(10000))
                 .onSuccess(reply -> RouterUtility.sendCreated(ctx, reply.body()))
                 .onFailure(err -> {
                     String msg = err.getMessage();
-                    if (msg != null && msg.contains("400"))
+                    if (err instanceof ReplyException re && re.failureCode() == 503)
+                        RouterUtility.sendOverloaded(ctx, msg);
+                    else if (msg != null && msg.contains("400"))
                         RouterUtility.sendBadRequest(ctx, msg);
                     else
                         RouterUtility.sendServerError(ctx, msg == null ? "Create failed" : msg);
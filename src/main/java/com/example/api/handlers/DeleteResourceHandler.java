@@ -2,13 +2,14 @@ package com.example.api.handlers;
 
 import io.vertx.core.eventbus.DeliveryOptions;
 import io.vertx.ext.web.RoutingContext;
+import com.example.api.CrudClient;
 import com.example.api.RouterUtility;
 import io.vertx.core.eventbus.ReplyException;
 
 public class DeleteResourceHandler {
     public static void handle(RoutingContext ctx) {
         String id = ctx.pathParam("id");
-        ctx.vertx().eventBus().request("crud.delete", id, new DeliveryOptions().setSendTimeout(8000))
+        CrudClient.getInstance().request(ctx.vertx(), "crud.delete", id, id, new DeliveryOptions().setSendTimeout(8000))
                 .onSuccess(reply -> RouterUtility.sendNoContent(ctx))
                 .onFailure(err -> {
                     if (err instanceof ReplyException re) {
@@ -16,6 +17,7 @@ public class DeleteResourceHandler {
                         switch (code) {
                             case 400 -> RouterUtility.sendBadRequest(ctx, re.getMessage());
                             case 404 -> RouterUtility.sendNotFound(ctx, re.getMessage());
+                            case 503 -> RouterUtility.sendOverloaded(ctx, re.getMessage());
                             default -> RouterUtility.sendServerError(ctx, re.getMessage());
                         }
                     } else
@@ -0,0 +1,37 @@
+package com.example.api.handlers;
+
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+import com.example.api.CrudClient;
+import com.example.api.RouterUtility;
+
+/**
+ * Reports how a list request's filter and sort would be planned: the
+ * translated query, the index it is meant to use and the server's winning
+ * plan
+ */
+public class ExplainQueryHandler {
+    public static void handle(RoutingContext ctx) {
+        int limit;
+        try {
+            limit = Integer.parseInt(ctx.request().getParam("limit", "10"));
+        } catch (NumberFormatException e) {
+            RouterUtility.sendBadRequest(ctx, "Invalid limit");
+            return;
+        }
+        JsonObject payload = new JsonObject()
+                .put("filter", ctx.request().getParam("filter"))
+                .put("sort", ctx.request().getParam("sort"))
+                .put("limit", limit);
+        CrudClient.getInstance().request(ctx.vertx(), "crud.explain", payload, new DeliveryOptions().setSendTimeout(8000))
+                .onSuccess(reply -> RouterUtility.sendJsonResponse(ctx, reply.body()))
+                .onFailure(err -> {
+                    if (err instanceof ReplyException re && re.failureCode() == 400)
+                        RouterUtility.sendBadRequest(ctx, re.getMessage());
+                    else
+                        RouterUtility.sendServerError(ctx, err.getMessage());
+                });
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.api.handlers;
+
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.ext.mongo.FindOptions;
+import io.vertx.ext.web.RoutingContext;
+import java.util.concurrent.atomic.AtomicBoolean;
+import com.example.api.DatabaseManager;
+import com.example.api.Metrics;
+import com.example.api.ResourceQueries;
+import com.example.api.RouterUtility;
+
+/**
+ * Streams the resources collection as NDJSON from a single Mongo cursor.
+ * This reads Mongo directly rather than through the master verticle because
+ * the event bus has no streaming replies; the cursor is paused whenever the
+ * HTTP write queue is full, so heap use stays flat regardless of size.
+ */
+public class ExportResourcesHandler {
+    private static final int BATCH_SIZE = 500;
+
+    public static void handle(RoutingContext ctx) {
+        ResourceQueries.Plan plan;
+        try {
+            plan = ResourceQueries.plan(ctx.request().getParam("filter"));
+        } catch (IllegalArgumentException e) {
+            RouterUtility.sendBadRequest(ctx, e.getMessage());
+            return;
+        }
+        FindOptions options = plan.apply(new FindOptions().setBatchSize(BATCH_SIZE));
+        ReadStream<JsonObject> docs = Metrics.getInstance().mongoStream("findBatchWithOptions",
+                DatabaseManager.getInstance().getMongoClient().findBatchWithOptions("resources", plan.query, options));
+
+        HttpServerResponse response = ctx.response()
+                .setChunked(true)
+                .putHeader("content-type", "application/x-ndjson");
+
+        // If the client goes away, cancel the stream: a null handler cancels the
+        // subscription, which closes the server cursor instead of leaving it to time out
+        AtomicBoolean closed = new AtomicBoolean();
+        response.closeHandler(v -> {
+            closed.set(true);
+            response.drainHandler(null);
+            docs.handler(null);
+        });
+
+        docs.exceptionHandler(err -> {
+            if (closed.get())
+                return;
+            if (!response.headWritten())
+                RouterUtility.sendServerError(ctx, "Export failed: " + err.getMessage());
+            else
+                response.reset();
+        });
+        docs.endHandler(v -> {
+            if (!closed.get())
+                response.end();
+        });
+        docs.handler(doc -> {
+            if (closed.get())
+                return;
+            response.write(doc.toBuffer().appendByte((byte) '\n'));
+            if (response.writeQueueFull()) {
+                docs.pause();
+                response.drainHandler(drained -> docs.resume());
+            }
+        });
+    }
+}
@@ -1,21 +1,53 @@
 package com.example.api.handlers;
 
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.eventbus.DeliveryOptions;
 import io.vertx.ext.web.RoutingContext;
+import com.example.api.CrudClient;
+import com.example.api.CrudHandler;
+import com.example.api.JsonBufferEncoder;
+import com.example.api.NearCache;
 import com.example.api.RouterUtility;
 import io.vertx.core.eventbus.ReplyException;
 
 public class GetResourceHandler {
     public static void handle(RoutingContext ctx) {
+        if (ctx.request().getParam("action") != null) {
+            // Versioned store/retrieve/history via resource.* addresses
+            CrudHandler.getResourceById(ctx);
+            return;
+        }
         String id = ctx.pathParam("id");
-        ctx.vertx().eventBus().request("crud.get", id, new DeliveryOptions().setSendTimeout(8000))
-                .onSuccess(reply -> RouterUtility.sendJsonResponse(ctx, reply.body()))
+        NearCache nearCache = ctx.get("nearCache");
+        boolean pretty = RouterUtility.wantsPretty(ctx);
+        if (nearCache != null && !pretty) {
+            Buffer cached = nearCache.get(id);
+            if (cached != null) {
+                RouterUtility.sendJsonBuffer(ctx, cached);
+                return;
+            }
+        }
+        long stamp = nearCache == null ? 0 : nearCache.stamp();
+        CrudClient.getInstance().request(ctx.vertx(), "crud.get", id, id, new DeliveryOptions().setSendTimeout(8000))
+                .onSuccess(reply -> {
+                    if (nearCache == null) {
+                        RouterUtility.sendJsonResponse(ctx, reply.body());
+                        return;
+                    }
+                    Buffer body = JsonBufferEncoder.encode(reply.body(), false);
+                    nearCache.put(id, body, stamp);
+                    if (pretty)
+                        RouterUtility.sendJsonResponse(ctx, reply.body());
+                    else
+                        RouterUtility.sendJsonBuffer(ctx, body);
+                })
                 .onFailure(err -> {
                     if (err instanceof ReplyException re) {
                         int code = re.failureCode();
                         switch (code) {
                             case 400 -> RouterUtility.sendBadRequest(ctx, re.getMessage());
                             case 404 -> RouterUtility.sendNotFound(ctx, re.getMessage());
+                            case 503 -> RouterUtility.sendOverloaded(ctx, re.getMessage());
                             default -> RouterUtility.sendServerError(ctx, re.getMessage());
                         }
                     } else
@@ -0,0 +1,145 @@
+package com.example.api.handlers;
+
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.parsetools.RecordParser;
+import io.vertx.ext.web.RoutingContext;
+import com.example.api.CrudClient;
+import com.example.api.CrudMessageCodec;
+import com.example.api.RouterUtility;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming NDJSON import. Lines are parsed as they arrive (no BodyHandler on
+ * this route) and sent to crud.bulk as unordered batches of creates; the
+ * request stream is paused while a batch is being written, so memory use is
+ * bounded by the batch size rather than the upload size.
+ */
+public class ImportResourcesHandler {
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final int MAX_LINE_BYTES = 1024 * 1024;
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    public static void handle(RoutingContext ctx) {
+        int batchSize = DEFAULT_BATCH_SIZE;
+        String batchParam = ctx.request().getParam("batchSize");
+        if (batchParam != null) {
+            try {
+                batchSize = Math.max(1, Math.min(MAX_BATCH_SIZE, Integer.parseInt(batchParam)));
+            } catch (NumberFormatException e) {
+                RouterUtility.sendBadRequest(ctx, "Invalid batchSize");
+                return;
+            }
+        }
+        new Import(ctx, batchSize).start();
+    }
+
+    private static final class Import {
+        private final RoutingContext ctx;
+        private final int batchSize;
+        private final RecordParser parser;
+
+        private final List<JsonObject> operations = new ArrayList<>();
+        private final List<Long> operationLines = new ArrayList<>();
+        private final JsonArray errors = new JsonArray();
+        private long line;
+        private long accepted;
+        private long rejected;
+        private boolean writing;
+        private boolean ended;
+        private boolean done;
+
+        Import(RoutingContext ctx, int batchSize) {
+            this.ctx = ctx;
+            this.batchSize = batchSize;
+            this.parser = RecordParser.newDelimited("\n", ctx.request());
+            this.parser.maxRecordSize(MAX_LINE_BYTES);
+        }
+
+        void start() {
+            parser.exceptionHandler(err -> {
+                if (!done) {
+                    done = true;
+                    RouterUtility.sendBadRequest(ctx, "Import aborted at line " + (line + 1) + ": " + err.getMessage());
+                }
+            });
+            parser.endHandler(v -> {
+                ended = true;
+                if (!writing)
+                    flush();
+            });
+            parser.handler(record -> {
+                line++;
+                String text = record.toString().trim();
+                if (text.isEmpty())
+                    return;
+                try {
+                    operations.add(new JsonObject().put("op", "create").put("body", new JsonObject(text)));
+                    operationLines.add(line);
+                } catch (DecodeException | ClassCastException e) {
+                    reject(line, "Invalid JSON object");
+                }
+                if (operations.size() >= batchSize && !writing)
+                    flush();
+            });
+            ctx.request().resume();
+        }
+
+        private void flush() {
+            if (done)
+                return;
+            if (operations.isEmpty()) {
+                if (ended)
+                    finish();
+                return;
+            }
+            List<JsonObject> batch = new ArrayList<>(operations);
+            List<Long> lines = new ArrayList<>(operationLines);
+            operations.clear();
+            operationLines.clear();
+
+            writing = true;
+            parser.pause();
+            JsonObject payload = new JsonObject()
+                    .put("ordered", false)
+                    .put("operations", new JsonArray(batch));
+            CrudClient.getInstance().request(ctx.vertx(), "crud.bulk", payload, CrudMessageCodec.options().setSendTimeout(30000))
+                    .onSuccess(reply -> {
+                        JsonArray results = ((JsonObject) reply.body()).getJsonArray("results");
+                        for (int i = 0; i < results.size(); i++) {
+                            JsonObject result = results.getJsonObject(i);
+                            if ("created".equals(result.getString("status")))
+                                accepted++;
+                            else
+                                reject(lines.get(result.getInteger("index")), result.getString("error", "Not written"));
+                        }
+                    })
+                    .onFailure(err -> lines.forEach(l -> reject(l, err.getMessage())))
+                    .onComplete(ar -> {
+                        writing = false;
+                        if (ended)
+                            flush();
+                        else
+                            parser.resume();
+                    });
+        }
+
+        private void reject(long lineNumber, String error) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS)
+                errors.add(new JsonObject().put("line", lineNumber).put("error", error));
+        }
+
+        private void finish() {
+            done = true;
+            RouterUtility.sendJsonResponse(ctx, new JsonObject()
+                    .put("lines", line)
+                    .put("accepted", accepted)
+                    .put("rejected", rejected)
+                    .put("errors", errors));
+        }
+    }
+}
@@ -1,32 +1,38 @@
 package com.example.api.handlers;
 
-import io.vertx.core.eventbus.DeliveryOptions;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
+import com.example.api.CrudClient;
+import com.example.api.CrudMessageCodec;
 import com.example.api.RouterUtility;
+import io.vertx.core.eventbus.ReplyException;
 
 public class ListResourcesHandler {
     public static void handle(RoutingContext ctx) {
         String filter = ctx.request().getParam("filter");
-        int page = 1;
-        int limit = 10;
+        RouterUtility.PaginationParams pagination;
         try {
-            String pageParam = ctx.request().getParam("page");
-            if (pageParam != null)
-                page = Integer.parseInt(pageParam);
-            String limitParam = ctx.request().getParam("limit");
-            if (limitParam != null)
-                limit = Integer.parseInt(limitParam);
-        } catch (NumberFormatException e) {
-            RouterUtility.sendBadRequest(ctx, "Invalid pagination parameters");
+            pagination = RouterUtility.parsePaginationParams(ctx);
+        } catch (IllegalArgumentException e) {
+            RouterUtility.sendBadRequest(ctx, e.getMessage());
             return;
         }
         JsonObject payload = new JsonObject()
                 .put("filter", filter)
-                .put("page", page)
-                .put("limit", limit);
-        ctx.vertx().eventBus().request("crud.list", payload, new DeliveryOptions().setSendTimeout(8000))
+                .put("page", pagination.page)
+                .put("limit", pagination.limit)
+                .put("sort", ctx.request().getParam("sort"))
+                .put("cursor", ctx.request().getParam("cursor"))
+                .put("withTotal", "true".equalsIgnoreCase(ctx.request().getParam("withTotal")));
+        CrudClient.getInstance().request(ctx.vertx(), "crud.list", payload, CrudMessageCodec.options().setSendTimeout(8000))
                 .onSuccess(reply -> RouterUtility.sendJsonResponse(ctx, reply.body()))
-                .onFailure(err -> RouterUtility.sendServerError(ctx, err.getMessage()));
+                .onFailure(err -> {
+                    if (err instanceof ReplyException re && re.failureCode() == 400)
+                        RouterUtility.sendBadRequest(ctx, re.getMessage());
+                    else if (err instanceof ReplyException re && re.failureCode() == 503)
+                        RouterUtility.sendOverloaded(ctx, re.getMessage());
+                    else
+                        RouterUtility.sendServerError(ctx, err.getMessage());
+                });
     }
 }
@@ -0,0 +1,43 @@
+package com.example.api.handlers;
+
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+import com.example.api.HotPathLog;
+import com.example.api.RouterUtility;
+
+public class LogLevelHandler {
+    public static void get(RoutingContext ctx) {
+        RouterUtility.sendJsonResponse(ctx, HotPathLog.stats());
+    }
+
+    /**
+     * Apply {level, sampling} here and publish it to every other JVM in the
+     * cluster
+     */
+    public static void update(RoutingContext ctx) {
+        JsonObject body;
+        try {
+            body = ctx.body().asJsonObject();
+        } catch (RuntimeException e) {
+            RouterUtility.sendBadRequest(ctx, "Invalid JSON body");
+            return;
+        }
+        if (body == null) {
+            RouterUtility.sendBadRequest(ctx, "Request body is required");
+            return;
+        }
+        String level;
+        JsonObject sampling;
+        try {
+            level = body.getString("level");
+            sampling = body.getJsonObject("sampling");
+            HotPathLog.update(level, sampling);
+        } catch (ClassCastException | IllegalArgumentException e) {
+            RouterUtility.sendBadRequest(ctx, e instanceof ClassCastException ? "Invalid level or sampling" : e.getMessage());
+            return;
+        }
+        ctx.vertx().eventBus().publish(HotPathLog.CONTROL_ADDRESS,
+                new JsonObject().put("level", level).put("sampling", sampling));
+        RouterUtility.sendJsonResponse(ctx, HotPathLog.stats());
+    }
+}
@@ -1,8 +1,9 @@
 package com.example.api.handlers;
 
-import io.vertx.core.eventbus.DeliveryOptions;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
+import com.example.api.CrudClient;
+import com.example.api.CrudMessageCodec;
 import com.example.api.RouterUtility;
 import io.vertx.core.eventbus.ReplyException;
 
@@ -11,7 +12,7 @@ public class PatchResourceHandler {
         String id = ctx.pathParam("id");
         JsonObject body = ctx.body().asJsonObject();
         JsonObject payload = new JsonObject().put("id", id).put("body", body);
-        ctx.vertx().eventBus().request("crud.patch", payload, new DeliveryOptions().setSendTimeout(8000))
+        CrudClient.getInstance().request(ctx.vertx(), "crud.patch", id, payload, CrudMessageCodec.options().setSendTimeout(8000))
                 .onSuccess(reply -> RouterUtility.sendJsonResponse(ctx, reply.body()))
                 .onFailure(err -> {
                     if (err instanceof ReplyException re) {
@@ -19,6 +20,7 @@ public class PatchResourceHandler {
                         switch (code) {
                             case 400 -> RouterUtility.sendBadRequest(ctx, re.getMessage());
                             case 404 -> RouterUtility.sendNotFound(ctx, re.getMessage());
+                            case 503 -> RouterUtility.sendOverloaded(ctx, re.getMessage());
                             default -> RouterUtility.sendServerError(ctx, re.getMessage());
                         }
                     } else
@@ -0,0 +1,104 @@
+package com.example.api.handlers;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+import com.example.api.ClusterMembership;
+import com.example.api.CrudClient;
+import com.example.api.HotPathLog;
+import com.example.api.Metrics;
+import com.example.api.NearCache;
+import com.example.api.RouterUtility;
+import com.example.api.ScatterGatherLookup;
+import com.example.api.VersionReplicator;
+import com.example.api.VersionStore;
+import java.util.List;
+import java.util.Set;
+
+public class StatsHandler {
+    // Configuration echoed by the caches and batchers, the same on every master
+    private static final Set<String> SETTINGS = Set.of("maxSize", "ttlMs", "windowMs", "maxBatchSize");
+
+    public static void handle(RoutingContext ctx) {
+        CrudClient.getInstance().requestEach(ctx.vertx(), "crud.stats", null, 8000)
+                .onSuccess(replies -> {
+                    JsonObject stats = aggregate(replies);
+                    NearCache nearCache = NearCache.getInstance();
+                    if (nearCache != null)
+                        stats.put("nearCache", nearCache.stats());
+                    stats.put("routing", CrudClient.getInstance().stats());
+                    stats.put("versionStore", VersionStore.getInstance().stats());
+                    stats.put("membership", ClusterMembership.getInstance().stats());
+                    stats.put("lookupLatency", ScatterGatherLookup.stats());
+                    stats.put("logging", HotPathLog.stats());
+                    stats.put("latency", Metrics.getInstance().stats());
+                    JsonObject replication = VersionReplicator.statsOrNull();
+                    if (replication != null)
+                        stats.put("replication", replication);
+                    RouterUtility.sendJsonResponse(ctx, stats);
+                })
+                .onFailure(err -> RouterUtility.sendServerError(ctx, err.getMessage()));
+    }
+
+    /**
+     * Sum the counters of every partition master's crud.stats, keeping the
+     * individual replies under "partitions" when there is more than one
+     */
+    private static JsonObject aggregate(List<Object> replies) {
+        if (replies.size() == 1) {
+            return ((JsonObject) replies.get(0)).copy();
+        }
+        JsonObject total = new JsonObject();
+        JsonArray partitions = new JsonArray();
+        for (Object reply : replies) {
+            JsonObject master = (JsonObject) reply;
+            partitions.add(master);
+            for (String section : master.fieldNames()) {
+                if (master.getValue(section) instanceof JsonObject counters) {
+                    JsonObject sum = total.getJsonObject(section);
+                    if (sum == null) {
+                        sum = new JsonObject();
+                        total.put(section, sum);
+                    }
+                    merge(sum, counters);
+                }
+            }
+        }
+        for (String section : total.fieldNames()) {
+            JsonObject sum = total.getJsonObject(section);
+            Long hits = sum.getLong("hits");
+            Long misses = sum.getLong("misses");
+            if (sum.containsKey("hitRate") && hits != null && misses != null) {
+                sum.put("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+            }
+            Long batches = sum.getLong("batches");
+            if (sum.containsKey("avgBatchSize") && batches != null) {
+                sum.put("avgBatchSize", batches == 0 ? 0.0 : sum.getLong("ids", 0L) / (double) batches);
+            }
+        }
+        return total.put("partitions", partitions);
+    }
+
+    /**
+     * Add integral counters, keep the largest of maxima, and take settings
+     * and averages from the first master (averages are recomputed above
+     * where the inputs allow)
+     */
+    private static void merge(JsonObject sum, JsonObject counters) {
+        for (String field : counters.fieldNames()) {
+            Object value = counters.getValue(field);
+            Object current = sum.getValue(field);
+            if (current == null) {
+                sum.put(field, value);
+            } else if (SETTINGS.contains(field) || !(value instanceof Number n) || !(current instanceof Number c)) {
+                // Keep the first master's value
+            } else if (field.startsWith("max") || field.startsWith("largest")) {
+                if (n.doubleValue() > c.doubleValue()) {
+                    sum.put(field, value);
+                }
+            } else if (value instanceof Integer || value instanceof Long) {
+                sum.put(field, c.longValue() + n.longValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveLimiterTest {
+
+    private static final long FAST = 2_000_000;
+
+    private static AdaptiveLimiter limiter(int initialLimit) {
+        AdaptiveLimiter.configure(new JsonObject()
+                .put("admissionInitialLimit", initialLimit)
+                .put("admissionMinLimit", 4)
+                .put("admissionMaxLimit", 1000));
+        return AdaptiveLimiter.create("test", "limiter");
+    }
+
+    @AfterEach
+    void restoreDefaults() {
+        AdaptiveLimiter.configure(new JsonObject());
+    }
+
+    @Test
+    void classifiesAddresses() {
+        for (String read : new String[] {"crud.get", "crud.list", "crud.stats", "crud.explain",
+                "resource.lookup", "resource.history"}) {
+            assertEquals(AdaptiveLimiter.Priority.READ, AdaptiveLimiter.Priority.ofAddress(read), read);
+        }
+        assertEquals(AdaptiveLimiter.Priority.BULK, AdaptiveLimiter.Priority.ofAddress("crud.bulk"));
+        assertEquals(AdaptiveLimiter.Priority.WRITE, AdaptiveLimiter.Priority.ofAddress("crud.create"));
+        assertEquals(AdaptiveLimiter.Priority.WRITE, AdaptiveLimiter.Priority.ofAddress("resource.store"));
+    }
+
+    @Test
+    void lowerPrioritiesAreShedFirst() {
+        AdaptiveLimiter limiter = limiter(20);
+        int bulk = 0;
+        while (limiter.tryAcquire(AdaptiveLimiter.Priority.BULK)) {
+            bulk++;
+        }
+        int writes = 0;
+        while (limiter.tryAcquire(AdaptiveLimiter.Priority.WRITE)) {
+            writes++;
+        }
+        int reads = 0;
+        while (limiter.tryAcquire(AdaptiveLimiter.Priority.READ)) {
+            reads++;
+        }
+        // Bulk fills half the limit, writes up to 90%, reads the rest
+        assertEquals(10, bulk);
+        assertEquals(8, writes);
+        assertEquals(2, reads);
+        assertEquals(20, limiter.inFlight());
+        assertEquals(1, limiter.shed(AdaptiveLimiter.Priority.BULK));
+        assertEquals(1, limiter.shed(AdaptiveLimiter.Priority.WRITE));
+        assertEquals(1, limiter.shed(AdaptiveLimiter.Priority.READ));
+    }
+
+    @Test
+    void optionalWorkLeavesHeadroomAndIsNotCountedAsShed() {
+        AdaptiveLimiter limiter = limiter(20);
+        int optional = 0;
+        while (limiter.tryAcquireOptional(AdaptiveLimiter.Priority.READ)) {
+            optional++;
+        }
+        assertEquals(18, optional);
+        assertEquals(0, limiter.shed(AdaptiveLimiter.Priority.READ));
+        assertTrue(limiter.tryAcquire(AdaptiveLimiter.Priority.READ));
+        assertTrue(limiter.tryAcquire(AdaptiveLimiter.Priority.READ));
+        assertFalse(limiter.tryAcquire(AdaptiveLimiter.Priority.READ));
+    }
+
+    @Test
+    void growsAdditivelyOnlyWhileSaturated() {
+        AdaptiveLimiter limiter = limiter(10);
+        // One call at a time never uses half the limit
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.tryAcquire(AdaptiveLimiter.Priority.READ));
+            limiter.release(AdaptiveLimiter.Priority.READ, FAST, false);
+        }
+        assertEquals(10, limiter.limit());
+
+        // With the limit in use it grows by 1/limit per completion, about one per limit completions
+        for (int round = 0; round < 10; round++) {
+            int acquired = 0;
+            while (limiter.tryAcquire(AdaptiveLimiter.Priority.READ)) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++) {
+                limiter.release(AdaptiveLimiter.Priority.READ, FAST, false);
+            }
+        }
+        assertTrue(limiter.limit() >= 14 && limiter.limit() <= 16, "limit " + limiter.limit());
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void shrinksMultiplicativelyOnOverloadAtMostEvery100Millis() throws Exception {
+        AdaptiveLimiter limiter = limiter(100);
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire(AdaptiveLimiter.Priority.READ);
+            limiter.release(AdaptiveLimiter.Priority.READ, FAST, true);
+        }
+        assertEquals(90, limiter.limit());
+        Thread.sleep(110);
+        limiter.tryAcquire(AdaptiveLimiter.Priority.READ);
+        limiter.release(AdaptiveLimiter.Priority.READ, FAST, true);
+        assertEquals(81, limiter.limit());
+    }
+
+    @Test
+    void neverShrinksBelowTheMinimum() throws Exception {
+        AdaptiveLimiter limiter = limiter(5);
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire(AdaptiveLimiter.Priority.READ);
+            limiter.release(AdaptiveLimiter.Priority.READ, FAST, true);
+            Thread.sleep(110);
+        }
+        assertEquals(4, limiter.limit());
+    }
+
+    @Test
+    void latencyRisingAboveTheToleranceCountsAsOverload() {
+        AdaptiveLimiter limiter = limiter(100);
+        for (int i = 0; i < 200; i++) {
+            limiter.tryAcquire(AdaptiveLimiter.Priority.READ);
+            limiter.release(AdaptiveLimiter.Priority.READ, FAST, false);
+        }
+        assertEquals(100, limiter.limit());
+        for (int i = 0; i < 20; i++) {
+            limiter.tryAcquire(AdaptiveLimiter.Priority.READ);
+            limiter.release(AdaptiveLimiter.Priority.READ, 20 * FAST, false);
+        }
+        assertEquals(90, limiter.limit());
+    }
+
+    @Test
+    void bulkLatencyDoesNotFeedTheAverages() {
+        AdaptiveLimiter limiter = limiter(100);
+        for (int i = 0; i < 200; i++) {
+            limiter.tryAcquire(AdaptiveLimiter.Priority.READ);
+            limiter.release(AdaptiveLimiter.Priority.READ, FAST, false);
+        }
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limiter.tryAcquire(AdaptiveLimiter.Priority.BULK));
+            limiter.release(AdaptiveLimiter.Priority.BULK, 1000 * FAST, false);
+        }
+        assertEquals(100, limiter.limit());
+        assertFalse(limiter.stats().getDouble("shortLatencyMs") > 2.5);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.api;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+/**
+ * Minimal timing loop for the @Tag("benchmark") tests (run with
+ * mvn test -Pbenchmark). Not JMH: good enough to compare two code paths in
+ * the same JVM, not for absolute numbers.
+ */
+final class Bench {
+
+    private Bench() {
+    }
+
+    /**
+     * Nanoseconds per call of the operation, after a warmup of the same length.
+     * The operation returns a value so the JIT can't drop it.
+     */
+    static double nanosPerOp(int iterations, LongSupplier operation) {
+        long sink = 0;
+        for (int i = 0; i < iterations; i++) {
+            sink += operation.getAsLong();
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += operation.getAsLong();
+        }
+        long elapsed = System.nanoTime() - started;
+        if (sink == 42) {
+            System.out.print("");
+        }
+        return elapsed / (double) iterations;
+    }
+
+    /**
+     * Given percentile of recorded latencies
+     */
+    static long percentile(long[] nanos, double percentile) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(rank, sorted.length - 1))];
+    }
+
+    static void report(String name, String format, Object... args) {
+        System.out.println(String.format(Locale.ROOT, "[benchmark] %-40s " + format, prepend(name, args)));
+    }
+
+    private static Object[] prepend(Object first, Object[] rest) {
+        Object[] all = new Object[rest.length + 1];
+        all[0] = first;
+        System.arraycopy(rest, 0, all, 1, rest.length);
+        return all;
+    }
+}
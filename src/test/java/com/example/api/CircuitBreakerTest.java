@@ -0,0 +1,90 @@
+package com.example.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final CircuitBreaker breaker = new CircuitBreaker(3, 5000, now::get);
+
+    private String state() {
+        return breaker.stats().getString("state");
+    }
+
+    private void open() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.allowRequest());
+            breaker.onFailure();
+        }
+        assertEquals("OPEN", state());
+    }
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onFailure();
+        assertEquals("CLOSED", state());
+        breaker.onFailure();
+        assertEquals("OPEN", state());
+        assertTrue(breaker.isOpen());
+        assertFalse(breaker.allowRequest());
+        assertEquals(1, breaker.stats().getLong("rejected"));
+    }
+
+    @Test
+    void halfOpenLetsOneTrialThrough() {
+        open();
+        now.addAndGet(4999);
+        assertFalse(breaker.allowRequest());
+        now.addAndGet(1);
+        assertFalse(breaker.isOpen());
+        assertTrue(breaker.allowRequest());
+        assertEquals("HALF_OPEN", state());
+        // Only one trial at a time
+        assertFalse(breaker.allowRequest());
+        assertFalse(breaker.allowRequest());
+        assertEquals(3, breaker.stats().getLong("rejected"));
+    }
+
+    @Test
+    void successfulTrialCloses() {
+        open();
+        now.addAndGet(5000);
+        assertTrue(breaker.allowRequest());
+        breaker.onSuccess();
+        assertEquals("CLOSED", state());
+        assertTrue(breaker.allowRequest());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    void failedTrialReopensForAnotherFullPeriod() {
+        open();
+        now.addAndGet(5000);
+        assertTrue(breaker.allowRequest());
+        breaker.onFailure();
+        assertEquals("OPEN", state());
+        assertEquals(2, breaker.stats().getLong("opened"));
+        now.addAndGet(4999);
+        assertFalse(breaker.allowRequest());
+        now.addAndGet(1);
+        assertTrue(breaker.allowRequest());
+        assertEquals("HALF_OPEN", state());
+    }
+
+    @Test
+    void failuresWhileOpenDoNotCountAsNewOpenings() {
+        open();
+        breaker.onFailure();
+        breaker.onFailure();
+        assertEquals(1, breaker.stats().getLong("opened"));
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class CrudClientTest {
+
+    @Test
+    void breakersOfDepartedNodesArePruned() throws Exception {
+        CrudClient client = CrudClient.getInstance();
+        Vertx vertx = TestVertx.create();
+        try {
+            for (String node : List.of("node-stays", "node-leaves")) {
+                // Nobody listens: fails with NO_HANDLERS, but leaves a breaker behind
+                assertTrue(client.requestNode(vertx, "resource.lookup", node, "id",
+                        new DeliveryOptions().setSendTimeout(1000)).toCompletionStage().handle((r, e) -> e)
+                        .toCompletableFuture().get() != null);
+            }
+        } finally {
+            vertx.close().await();
+        }
+        long before = client.stats().getLong("breakersPruned");
+        client.retainNodes(List.of("node-stays"));
+        assertEquals(before + 1, client.stats().getLong("breakersPruned"));
+        client.retainNodes(List.of("node-stays"));
+        assertEquals(before + 1, client.stats().getLong("breakersPruned"));
+        client.retainNodes(List.of());
+        assertEquals(before + 2, client.stats().getLong("breakersPruned"));
+    }
+
+    @Test
+    void onlyReadsGetAdaptiveTimeouts() throws Exception {
+        CrudClient client = CrudClient.getInstance();
+        Vertx vertx = TestVertx.create();
+        try {
+            for (String address : List.of("crud.get", "crud.update")) {
+                // A 1 ms recent history: the adaptive timeout would be minTimeoutMs
+                Metrics.Timer timer = Metrics.getInstance().request(address);
+                for (int i = 0; i < 200; i++) {
+                    timer.record(1_000_000, false);
+                }
+                for (String consumed : List.of(address, address + CrudClient.LOCAL_SUFFIX)) {
+                    vertx.eventBus().consumer(consumed, msg -> vertx.setTimer(500, t -> msg.reply("done")));
+                }
+            }
+            // Recent percentiles are recomputed at most once a second
+            Thread.sleep(1100);
+            Throwable read = client.request(vertx, "crud.get", "id", new DeliveryOptions().setSendTimeout(5000))
+                    .toCompletionStage().handle((r, e) -> e).toCompletableFuture().get();
+            assertTrue(read instanceof ReplyException re && re.failureType() == ReplyFailure.TIMEOUT);
+            assertEquals("done", client.request(vertx, "crud.update", "id", new DeliveryOptions().setSendTimeout(5000))
+                    .toCompletionStage().toCompletableFuture().get().body());
+        } finally {
+            vertx.close().await();
+        }
+    }
+}
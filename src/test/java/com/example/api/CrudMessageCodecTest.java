@@ -0,0 +1,170 @@
+package com.example.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+class CrudMessageCodecTest {
+
+    private static JsonObject roundTrip(CrudMessageCodec codec, JsonObject json) {
+        Buffer buffer = Buffer.buffer().appendString("prefix");
+        codec.encodeToWire(buffer, json);
+        return codec.decodeFromWire("prefix".length(), buffer);
+    }
+
+    @Test
+    void roundTripsEveryValueType() {
+        JsonObject json = new JsonObject()
+                .put("string", "héllo \"world\" 中")
+                .put("int", 42)
+                .put("long", 1L << 40)
+                .put("double", 1.5)
+                .put("true", true)
+                .put("false", false)
+                .putNull("null")
+                .put("object", new JsonObject().put("nested", new JsonArray().add(1).add("two")))
+                .put("array", new JsonArray().add(new JsonObject().put("a", 1)).addNull())
+                .put("instant", Instant.parse("2024-01-02T03:04:05Z"))
+                .put("long string", "x".repeat(100_000));
+        JsonObject decoded = roundTrip(new CrudMessageCodec(), json);
+        assertEquals(json.encode(), decoded.encode());
+        assertEquals(Integer.class, decoded.getValue("int").getClass());
+        assertEquals(Long.class, decoded.getValue("long").getClass());
+    }
+
+    @Test
+    void roundTripsNullAndEmpty() {
+        assertNull(roundTrip(new CrudMessageCodec(), null));
+        assertEquals(new JsonObject(), roundTrip(new CrudMessageCodec(), new JsonObject()));
+    }
+
+    @Test
+    void handedOverBodiesAreNotCopiedLocally() {
+        JsonObject json = new JsonObject().put("a", 1);
+        assertSame(json, new CrudMessageCodec().transform(json));
+    }
+
+    @Test
+    void sharedBodiesAreCopiedLocally() {
+        JsonObject cached = new JsonObject().put("nested", new JsonObject().put("a", 1));
+        JsonObject received = new CrudMessageCodec.Shared().transform(cached);
+        assertNotSame(cached, received);
+        assertEquals(cached, received);
+        received.getJsonObject("nested").put("a", 2);
+        assertEquals(1, cached.getJsonObject("nested").getInteger("a"));
+        assertEquals(CrudMessageCodec.SHARED_NAME, new CrudMessageCodec.Shared().name());
+    }
+
+    @Test
+    void sharedRepliesDoNotExposeTheSendersInstance() throws Exception {
+        Vertx vertx = TestVertx.create();
+        try {
+            CrudMessageCodec.register(vertx);
+            CrudMessageCodec.register(vertx);
+            JsonObject cached = new JsonObject().put("name", "cached");
+            vertx.eventBus().consumer("test.shared", msg -> msg.reply(cached, CrudMessageCodec.sharedOptions()));
+            JsonObject received = vertx.eventBus().<JsonObject>request("test.shared", null)
+                    .toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS).body();
+            received.put("name", "changed by receiver");
+            assertEquals("cached", cached.getString("name"));
+        } finally {
+            vertx.close().await();
+        }
+    }
+
+    /**
+     * Bytes on the wire and per-hop encode/decode cost of a 100-item list page
+     * against the default JsonObject codec (JSON text), plus p99 of local
+     * request/reply hops
+     */
+    @Test
+    @Tag("benchmark")
+    void compareWithJsonObjectCodec() throws Exception {
+        JsonObject page = JsonBufferEncoderTest.page(100);
+        CrudMessageCodec codec = new CrudMessageCodec();
+
+        Buffer binary = Buffer.buffer();
+        codec.encodeToWire(binary, page);
+        Buffer text = Buffer.buffer();
+        text.appendInt(0).appendBuffer(page.toBuffer());
+        Bench.report("wire size, JsonObject codec", "%8d bytes", text.length());
+        Bench.report("wire size, crud-binary", "%8d bytes", binary.length());
+
+        int iterations = 20_000;
+        long[] jsonHop = new long[iterations];
+        long[] binaryHop = new long[iterations];
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < iterations; i++) {
+                long started = System.nanoTime();
+                Buffer buffer = page.toBuffer();
+                new JsonObject(buffer);
+                jsonHop[i] = System.nanoTime() - started;
+
+                started = System.nanoTime();
+                Buffer encoded = Buffer.buffer(binary.length());
+                codec.encodeToWire(encoded, page);
+                codec.decodeFromWire(0, encoded);
+                binaryHop[i] = System.nanoTime() - started;
+            }
+        }
+        Bench.report("encode+decode p50/p99, JsonObject codec", "%8d / %8d ns",
+                Bench.percentile(jsonHop, 50), Bench.percentile(jsonHop, 99));
+        Bench.report("encode+decode p50/p99, crud-binary", "%8d / %8d ns",
+                Bench.percentile(binaryHop, 50), Bench.percentile(binaryHop, 99));
+
+        Vertx vertx = TestVertx.create();
+        try {
+            CrudMessageCodec.register(vertx);
+            vertx.eventBus().consumer("bench.json", msg -> msg.reply(page));
+            vertx.eventBus().consumer("bench.binary", msg -> msg.reply(page, CrudMessageCodec.options()));
+            vertx.eventBus().consumer("bench.shared", msg -> msg.reply(page, CrudMessageCodec.sharedOptions()));
+            for (String address : new String[] {"bench.json", "bench.binary", "bench.shared"}) {
+                long[] hops = localHops(vertx, address, 5_000);
+                Bench.report("local hop p50/p99, " + address, "%8d / %8d ns",
+                        Bench.percentile(hops, 50), Bench.percentile(hops, 99));
+            }
+        } finally {
+            vertx.close().await();
+        }
+        assertTrue(binary.length() < text.length());
+    }
+
+    private static long[] localHops(Vertx vertx, String address, int count) throws Exception {
+        long[] hops = new long[count];
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        vertx.runOnContext(v -> hop(vertx, address, hops, -count, done));
+        done.get(60, TimeUnit.SECONDS);
+        return hops;
+    }
+
+    // Negative indexes are warmup
+    private static void hop(Vertx vertx, String address, long[] hops, int index, CompletableFuture<Void> done) {
+        if (index == hops.length) {
+            done.complete(null);
+            return;
+        }
+        long started = System.nanoTime();
+        Future<Message<Object>> reply = vertx.eventBus().request(address, null, new DeliveryOptions());
+        reply.onComplete(ar -> {
+            if (index >= 0) {
+                hops[index] = System.nanoTime() - started;
+            }
+            hop(vertx, address, hops, index + 1, done);
+        });
+    }
+}
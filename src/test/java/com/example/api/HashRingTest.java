@@ -0,0 +1,82 @@
+package com.example.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class HashRingTest {
+
+    private static final List<String> NODES = List.of("node-a", "node-b", "node-c", "node-d");
+
+    @Test
+    void ownersAreDistinctPrimaryFirstAndCappedByNodeCount() {
+        HashRing ring = new HashRing(NODES, 64);
+        for (int i = 0; i < 1000; i++) {
+            List<String> owners = ring.owners("key-" + i, 3);
+            assertEquals(3, owners.size());
+            assertEquals(3, new HashSet<>(owners).size());
+            assertEquals(owners.get(0), ring.owners("key-" + i, 1).get(0));
+        }
+        assertEquals(4, ring.owners("key", 10).size());
+    }
+
+    @Test
+    void emptyRingHasNoOwners() {
+        HashRing ring = new HashRing(List.of(), 64);
+        assertTrue(ring.isEmpty());
+        assertEquals(List.of(), ring.owners("key", 2));
+        assertEquals(List.of(), new HashRing(NODES, 64).owners("key", 0));
+    }
+
+    @Test
+    void ownersDoNotDependOnMembershipOrder() {
+        List<String> reversed = new ArrayList<>(NODES);
+        Collections.reverse(reversed);
+        HashRing ring = new HashRing(NODES, 64);
+        HashRing other = new HashRing(reversed, 64);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(ring.owners("key-" + i, 2), other.owners("key-" + i, 2));
+        }
+    }
+
+    @Test
+    void keysSpreadEvenly() {
+        HashRing ring = new HashRing(NODES, 128);
+        Map<String, Integer> primaries = new HashMap<>();
+        int keys = 40_000;
+        for (int i = 0; i < keys; i++) {
+            primaries.merge(ring.owners("key-" + i, 1).get(0), 1, Integer::sum);
+        }
+        for (String node : NODES) {
+            int share = primaries.getOrDefault(node, 0);
+            // Within 25% of a fair share
+            assertTrue(Math.abs(share - keys / NODES.size()) < keys / NODES.size() / 4, node + ": " + share);
+        }
+    }
+
+    @Test
+    void removingANodeOnlyMovesItsKeys() {
+        HashRing before = new HashRing(NODES, 64);
+        HashRing after = new HashRing(NODES.subList(0, 3), 64);
+        int moved = 0;
+        for (int i = 0; i < 10_000; i++) {
+            String key = "key-" + i;
+            String primary = before.owners(key, 1).get(0);
+            if (primary.equals("node-d")) {
+                // The removed node's keys go to its first surviving replica
+                assertEquals(before.owners(key, 2).get(1), after.owners(key, 1).get(0));
+                moved++;
+            } else {
+                assertEquals(primary, after.owners(key, 1).get(0));
+            }
+        }
+        assertTrue(moved > 0);
+    }
+}
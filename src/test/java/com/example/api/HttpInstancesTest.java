@@ -0,0 +1,162 @@
+package com.example.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.PoolOptions;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+class HttpInstancesTest {
+
+    private static JsonObject services(JsonObject... services) {
+        return new JsonObject().put("services", new JsonArray(List.of((Object[]) services)));
+    }
+
+    @Test
+    void oneDeploymentPerConfiguredService() {
+        JsonObject config = services(
+                new JsonObject().put("port", 8888).put("serviceName", "Service1"),
+                new JsonObject().put("port", 8889).put("instances", 2).put("logLevel", "debug"));
+        List<DeploymentOptions> deployments = MainApp.httpDeployments(config,
+                new VertxOptions().setEventLoopPoolSize(6));
+        assertEquals(2, deployments.size());
+        // Instances default to one per event loop
+        assertEquals(6, deployments.get(0).getInstances());
+        assertEquals(new JsonObject().put("port", 8888).put("serviceName", "Service1"),
+                deployments.get(0).getConfig());
+        assertEquals(2, deployments.get(1).getInstances());
+        assertEquals(new JsonObject().put("port", 8889).put("logLevel", "debug").put("serviceName", "Service2"),
+                deployments.get(1).getConfig());
+    }
+
+    @Test
+    void invalidInstancesFallBackToTheEventLoopCount() {
+        JsonObject config = services(new JsonObject().put("port", 8888).put("instances", 0));
+        assertEquals(6, MainApp.httpDeployments(config, new VertxOptions().setEventLoopPoolSize(6))
+                .get(0).getInstances());
+    }
+
+    @Test
+    void servicesNeedAPort() {
+        assertThrows(IllegalArgumentException.class, () -> MainApp.httpDeployments(
+                services(new JsonObject().put("serviceName", "Service1")), new VertxOptions()));
+    }
+
+    @Test
+    void bundledConfigDeploysTheThreeServices() throws Exception {
+        JsonObject config = MainApp.loadConfig(new String[0], "services.json");
+        assertEquals(List.of(8888, 8889, 8890), MainApp.httpDeployments(config, new VertxOptions()).stream()
+                .map(deployment -> deployment.getConfig().getInteger("port")).toList());
+    }
+
+    /**
+     * Requests per second and latency percentiles of a closed-loop load
+     * against one MainVerticle instance and against one per event loop, on
+     * the same port. Requests go to /api/v1/hello, which needs no database,
+     * so what is measured is MainVerticle's router and its per-request
+     * handlers (metrics, timing, admission, logging) rather than Mongo. The
+     * gain depends on the cores available to the JVM.
+     */
+    @Test
+    @Tag("benchmark")
+    void throughputByInstanceCount() throws Exception {
+        int eventLoops = VertxOptions.DEFAULT_EVENT_LOOP_POOL_SIZE;
+        int connections = 64;
+        long durationMillis = 5_000;
+        Vertx server = TestVertx.create();
+        Vertx client = TestVertx.create();
+        try {
+            double single = 0;
+            double perEventLoop = 0;
+            for (int instances : new int[] {1, eventLoops}) {
+                int port;
+                try (ServerSocket socket = new ServerSocket(0)) {
+                    port = socket.getLocalPort();
+                }
+                JsonObject config = services(new JsonObject().put("port", port).put("instances", instances));
+                String deploymentId = server.deployVerticle(MainVerticle::new,
+                        MainApp.httpDeployments(config, new VertxOptions()).get(0)).await();
+                HttpClient http = client.createHttpClient(new PoolOptions().setHttp1MaxSize(connections));
+                // Warmup, then the measured run
+                load(http, port, connections, durationMillis / 2, new long[0]);
+                long[] latencies = new long[2_000_000];
+                int completed = load(http, port, connections, durationMillis, latencies);
+                http.close().await();
+                server.undeploy(deploymentId).await();
+
+                double perSecond = completed * 1000.0 / durationMillis;
+                long[] recorded = Arrays.copyOf(latencies, Math.min(completed, latencies.length));
+                Bench.report(instances + " instance(s)", "%10.0f req/s  p50/p99 %6d / %6d us",
+                        perSecond, Bench.percentile(recorded, 50) / 1000, Bench.percentile(recorded, 99) / 1000);
+                if (instances == 1) {
+                    single = perSecond;
+                } else {
+                    perEventLoop = perSecond;
+                }
+            }
+            Bench.report("speedup, " + eventLoops + " instances vs 1", "%10.2fx",
+                    perEventLoop / Math.max(1, single));
+            assertTrue(single > 0 && perEventLoop > 0);
+        } finally {
+            client.close().await();
+            server.close().await();
+        }
+    }
+
+    /**
+     * Keep the given number of requests in flight for the duration; returns
+     * how many completed, recording latencies while there is room
+     */
+    private static int load(HttpClient http, int port, int connections, long durationMillis, long[] latencies)
+            throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger running = new AtomicInteger(connections);
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        for (int i = 0; i < connections; i++) {
+            next(http, port, deadline, latencies, completed, running, done);
+        }
+        done.get(durationMillis + 30_000, TimeUnit.MILLISECONDS);
+        return completed.get();
+    }
+
+    private static void next(HttpClient http, int port, long deadline, long[] latencies,
+            AtomicInteger completed, AtomicInteger running, CompletableFuture<Void> done) {
+        long started = System.nanoTime();
+        if (started >= deadline) {
+            if (running.decrementAndGet() == 0) {
+                done.complete(null);
+            }
+            return;
+        }
+        http.request(HttpMethod.GET, port, "localhost", "/api/v1/hello")
+                .compose(req -> req.send().compose(HttpClientResponse::body))
+                .onComplete(ar -> {
+                    if (ar.failed()) {
+                        done.completeExceptionally(ar.cause());
+                        return;
+                    }
+                    int index = completed.getAndIncrement();
+                    if (index < latencies.length) {
+                        latencies[index] = System.nanoTime() - started;
+                    }
+                    next(http, port, deadline, latencies, completed, running, done);
+                });
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class HybridLogicalClockTest {
+
+    private final AtomicLong wall = new AtomicLong(1_700_000_000_000L);
+    private final HybridLogicalClock clock = new HybridLogicalClock(wall::get);
+
+    @Test
+    void followsTheWallClock() {
+        assertEquals(HybridLogicalClock.fromMillis(wall.get()), clock.now());
+        wall.addAndGet(5);
+        long next = clock.now();
+        assertEquals(wall.get(), HybridLogicalClock.physicalMillis(next));
+        assertEquals(HybridLogicalClock.fromMillis(wall.get()), next);
+    }
+
+    @Test
+    void countsLogicallyWhileTheWallClockStallsOrGoesBack() {
+        long first = clock.now();
+        assertEquals(first + 1, clock.now());
+        wall.addAndGet(-1000);
+        assertEquals(first + 2, clock.now());
+    }
+
+    @Test
+    void ordersAfterAcceptedRemoteTimestamps() {
+        long remote = HybridLogicalClock.fromMillis(wall.get() + 10_000) + 7;
+        assertTrue(clock.accepts(remote));
+        assertEquals(remote + 1, clock.update(remote));
+        assertEquals(remote + 2, clock.now());
+        // An older remote timestamp doesn't move the clock back
+        assertEquals(remote + 3, clock.update(HybridLogicalClock.fromMillis(wall.get())));
+    }
+
+    @Test
+    void rejectsTimestampsBeyondTheMaxDrift() {
+        clock.setMaxDriftMillis(1000);
+        long atLimit = HybridLogicalClock.fromMillis(wall.get() + 1000);
+        long beyond = HybridLogicalClock.fromMillis(wall.get() + 1001);
+        assertTrue(clock.accepts(atLimit));
+        assertFalse(clock.accepts(beyond));
+        long before = clock.now();
+        assertThrows(IllegalArgumentException.class, () -> clock.update(beyond));
+        assertEquals(before + 1, clock.now());
+        assertEquals(atLimit + 1, clock.update(atLimit));
+    }
+
+    @Test
+    void observesItsOwnPastTimestampsWithoutTheDriftCheck() {
+        clock.setMaxDriftMillis(0);
+        long recovered = HybridLogicalClock.fromMillis(wall.get() + 60_000);
+        clock.observe(recovered);
+        assertEquals(recovered + 1, clock.now());
+    }
+}
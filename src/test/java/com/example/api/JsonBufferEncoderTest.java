@@ -0,0 +1,86 @@
+package com.example.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.time.Instant;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+class JsonBufferEncoderTest {
+
+    static JsonObject page(int size) {
+        JsonArray data = new JsonArray();
+        for (int i = 0; i < size; i++) {
+            data.add(new JsonObject()
+                    .put("_id", "64f0c2a1e4b0" + String.format("%012d", i))
+                    .put("name", "Resource \"" + i + "\" é中")
+                    .put("description", "Description of resource " + i + "\nsecond line\t<tab>")
+                    .put("category", i % 2 == 0 ? "books" : "tools")
+                    .put("price", i * 1.5)
+                    .put("count", (long) i)
+                    .put("active", i % 3 == 0)
+                    .putNull("deleted")
+                    .put("tags", new JsonArray().add("a").add(i)));
+        }
+        return new JsonObject()
+                .put("data", data)
+                .put("pagination", new JsonObject().put("page", 1).put("limit", size).put("next", (String) null));
+    }
+
+    @Test
+    void compactMatchesEncode() {
+        JsonObject json = page(20);
+        assertEquals(json.encode(), JsonBufferEncoder.encode(json, false).toString());
+    }
+
+    @Test
+    void prettyMatchesEncodePrettily() {
+        JsonObject json = page(3);
+        Buffer pretty = JsonBufferEncoder.encode(json, true);
+        assertEquals(json, new JsonObject(pretty));
+        assertEquals(json.encodePrettily().replace("\r\n", "\n"), pretty.toString().replace("\r\n", "\n"));
+    }
+
+    @Test
+    void encodesArraysScalarsAndNestedTypes() {
+        JsonArray array = new JsonArray().add(1).add("two").add(new JsonObject().put("three", 3.0)).addNull();
+        assertEquals(array.encode(), JsonBufferEncoder.encode(array, false).toString());
+        assertEquals(Json.encode("text"), JsonBufferEncoder.encode("text", false).toString());
+        Instant now = Instant.parse("2024-01-02T03:04:05Z");
+        JsonObject withInstant = new JsonObject().put("at", now).put("bytes", new byte[] {1, 2, 3});
+        assertEquals(withInstant.encode(), JsonBufferEncoder.encode(withInstant, false).toString());
+    }
+
+    @Test
+    void largePayloadsGrowPastTheSizeHint() {
+        JsonObject json = page(2000);
+        Buffer buffer = JsonBufferEncoder.encode(json, false);
+        assertTrue(buffer.length() > 64 * 1024);
+        assertEquals(json, new JsonObject(buffer));
+    }
+
+    /**
+     * The old path (encodePrettily, then a String to Buffer copy) against the
+     * compact encoder on a 100-item list page
+     */
+    @Test
+    @Tag("benchmark")
+    void compareWithEncodePrettily() {
+        JsonObject json = page(100);
+        int iterations = 20_000;
+        double old = Bench.nanosPerOp(iterations, () -> Buffer.buffer(json.encodePrettily()).length());
+        double compact = Bench.nanosPerOp(iterations, () -> JsonBufferEncoder.encode(json, false).length());
+        double pretty = Bench.nanosPerOp(iterations, () -> JsonBufferEncoder.encode(json, true).length());
+        Bench.report("encodePrettily + Buffer.buffer", "%10.0f ns/op %8d bytes", old,
+                Buffer.buffer(json.encodePrettily()).length());
+        Bench.report("JsonBufferEncoder compact", "%10.0f ns/op %8d bytes", compact,
+                JsonBufferEncoder.encode(json, false).length());
+        Bench.report("JsonBufferEncoder pretty", "%10.0f ns/op %8d bytes", pretty,
+                JsonBufferEncoder.encode(json, true).length());
+    }
+}
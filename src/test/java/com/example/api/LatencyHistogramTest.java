@@ -0,0 +1,109 @@
+package com.example.api;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ThreadLocalRandom;
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+    private static final long MAX_VALUE = (1L << 40) - 1;
+
+    @Test
+    void bucketBoundaries() {
+        // Below 16 ns every value has its own bucket
+        assertEquals(15, LatencyHistogram.indexOf(15));
+        assertEquals(16, LatencyHistogram.upperBound(15));
+        // 16..31 ns: still 1 ns wide, the first log-linear group
+        assertEquals(16, LatencyHistogram.indexOf(16));
+        assertEquals(17, LatencyHistogram.upperBound(16));
+        assertEquals(31, LatencyHistogram.indexOf(31));
+        assertEquals(32, LatencyHistogram.upperBound(31));
+        // 32..63 ns: 2 ns wide
+        assertEquals(32, LatencyHistogram.indexOf(32));
+        assertEquals(32, LatencyHistogram.indexOf(33));
+        assertEquals(34, LatencyHistogram.upperBound(32));
+        assertEquals(33, LatencyHistogram.indexOf(34));
+        // The last bucket ends at 2^40
+        assertEquals(591, LatencyHistogram.indexOf(MAX_VALUE));
+        assertEquals(1L << 40, LatencyHistogram.upperBound(591));
+    }
+
+    @Test
+    void everyValueFallsInsideItsBucketWithinSixPercent() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 100_000; i++) {
+            long value = i < 1000 ? i : random.nextLong(MAX_VALUE + 1);
+            int index = LatencyHistogram.indexOf(value);
+            long upper = LatencyHistogram.upperBound(index);
+            long lower = index == 0 ? 0 : LatencyHistogram.upperBound(index - 1);
+            assertTrue(lower <= value && value < upper, value + " not in [" + lower + ", " + upper + ")");
+            assertTrue(upper - lower <= Math.max(1, lower / 16), value + ": bucket too wide");
+        }
+    }
+
+    @Test
+    void recordClampsToTheRange() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        long[] snapshot = histogram.snapshot();
+        assertEquals(1, snapshot[0]);
+        assertEquals(1, snapshot[591]);
+        assertEquals(MAX_VALUE, histogram.sumNanos());
+    }
+
+    @Test
+    void percentileRanks() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentile(99));
+        for (int value = 1; value <= 10; value++) {
+            histogram.record(value);
+        }
+        // Rank is ceil(p% of 10): the bucket of the n-th smallest value
+        assertEquals(1 + 1, histogram.percentile(0));
+        assertEquals(1 + 1, histogram.percentile(10));
+        assertEquals(2 + 1, histogram.percentile(10.1));
+        assertEquals(5 + 1, histogram.percentile(50));
+        assertEquals(9 + 1, histogram.percentile(90));
+        assertEquals(10 + 1, histogram.percentile(99));
+        assertEquals(10 + 1, histogram.percentile(100));
+    }
+
+    @Test
+    void percentilesOfSnapshotDifferences() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 100; i++) {
+            histogram.record(1_000_000);
+        }
+        long[] before = histogram.snapshot();
+        for (int i = 0; i < 100; i++) {
+            histogram.record(5);
+        }
+        long[] after = histogram.snapshot();
+        long[] window = new long[after.length];
+        for (int i = 0; i < window.length; i++) {
+            window[i] = after[i] - before[i];
+        }
+        assertEquals(6, LatencyHistogram.percentile(window, 99));
+        assertEquals(LatencyHistogram.upperBound(LatencyHistogram.indexOf(1_000_000)), histogram.percentile(99));
+    }
+
+    @Test
+    void cumulativeCountsForLeBuckets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(10);
+        histogram.record(15);
+        histogram.record(16);
+        histogram.record(31);
+        histogram.record(32);
+        histogram.record(1_000);
+        long[] bounds = {15, 16, 32, 34, 1_000_000};
+        // Buckets ending at or below a bound count towards it: 15 ns sits in [15, 16)
+        assertArrayEquals(new long[] {1, 2, 4, 5, 6, 6}, histogram.cumulativeCounts(bounds));
+        assertArrayEquals(new long[] {0, 0}, new LatencyHistogram().cumulativeCounts(new long[] {1}));
+        assertArrayEquals(new long[] {6}, histogram.cumulativeCounts(new long[0]));
+    }
+}
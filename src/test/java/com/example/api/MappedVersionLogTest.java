@@ -0,0 +1,79 @@
+package com.example.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.vertx.core.json.JsonObject;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedVersionLogTest {
+
+    private static final int SEGMENT_BYTES = 64 * 1024;
+
+    @TempDir
+    Path directory;
+
+    private MappedVersionLog open(int maxVersions) throws Exception {
+        MappedVersionLog log = new MappedVersionLog(directory, SEGMENT_BYTES, maxVersions);
+        log.open();
+        return log;
+    }
+
+    @Test
+    void rollsWithoutStallingWhenTheSpareIsPrepared() throws Exception {
+        MappedVersionLog log = open(1000);
+        String value = "v".repeat(1000);
+        long hlc = 1;
+        while (!log.needsSpare()) {
+            log.append("key", value, hlc++);
+        }
+        log.prepareSpare();
+        assertFalse(log.needsSpare());
+        assertTrue(log.stats().getBoolean("spareReady"));
+        while (log.stats().getInteger("currentSegment") == 0) {
+            log.append("key", value, hlc++);
+        }
+        JsonObject stats = log.stats();
+        assertEquals(0, stats.getLong("rollStalls"));
+        assertEquals(1, stats.getLong("preallocated"));
+        assertFalse(stats.getBoolean("spareReady"));
+        assertEquals(hlc - 1, log.latest("key").hlc);
+    }
+
+    @Test
+    void writerMapsTheNextSegmentItselfWhenNoSpareIsReady() throws Exception {
+        MappedVersionLog log = open(1000);
+        String value = "v".repeat(1000);
+        long hlc = 1;
+        while (log.stats().getInteger("currentSegment") < 2) {
+            log.append("key", value, hlc++);
+        }
+        assertEquals(2, log.stats().getLong("rollStalls"));
+        List<VersionStore.Version> history = log.history("key", 3);
+        assertEquals(List.of(hlc - 1, hlc - 2, hlc - 3), history.stream().map(v -> v.hlc).toList());
+    }
+
+    @Test
+    void trimmedSegmentsAreDeletedAndTheRestRecovered() throws Exception {
+        MappedVersionLog log = open(2);
+        String value = "v".repeat(1000);
+        for (long hlc = 1; hlc <= 200; hlc++) {
+            log.append("key-" + (hlc % 4), value, hlc);
+        }
+        log.snapshot();
+        log.append("key-0", "after snapshot", 201);
+        JsonObject stats = log.stats();
+        assertTrue(stats.getLong("deletedSegments") > 0);
+        assertEquals(8, stats.getLong("versions"));
+
+        MappedVersionLog reopened = open(2);
+        assertEquals(4, reopened.keys().size());
+        assertEquals("after snapshot", reopened.latest("key-0").value);
+        assertEquals(199, reopened.latest("key-3").hlc);
+        assertEquals(2, reopened.history("key-1", 10).size());
+    }
+}
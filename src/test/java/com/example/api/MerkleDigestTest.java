@@ -0,0 +1,55 @@
+package com.example.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class MerkleDigestTest {
+
+    private static VersionStore.Version version(String value, long hlc) {
+        return new VersionStore.Version(value, hlc);
+    }
+
+    @Test
+    void sameLatestVersionsGiveTheSameRootInAnyOrder() {
+        MerkleDigest a = new MerkleDigest(64);
+        MerkleDigest b = new MerkleDigest(64);
+        a.replace("x", null, version("1", 1));
+        a.replace("y", null, version("2", 2));
+        b.replace("y", null, version("2", 2));
+        b.replace("x", null, version("0", 0));
+        b.replace("x", version("0", 0), version("1", 1));
+        assertEquals(a.root(), b.root());
+    }
+
+    @Test
+    void rangesNarrowDownTheDifferingLeaves() {
+        MerkleDigest a = new MerkleDigest(1024);
+        MerkleDigest b = new MerkleDigest(1024);
+        for (int i = 0; i < 500; i++) {
+            a.replace("key-" + i, null, version("v", i));
+            b.replace("key-" + i, null, version("v", i));
+        }
+        assertEquals(a.root(), b.root());
+        b.replace("key-7", version("v", 7), version("w", 8));
+        assertNotEquals(a.root(), b.root());
+
+        assertEquals(32, a.ranges(32).length);
+        assertEquals(32, a.rangeWidth(32));
+        List<Integer> ranges = MerkleDigest.diff(a.ranges(32), b.ranges(32));
+        int leaf = a.leafOf("key-7");
+        assertEquals(List.of(leaf / 32), ranges);
+        assertEquals(List.of(leaf), MerkleDigest.diff(a.leaves(), b.leaves()));
+    }
+
+    @Test
+    void clearDropsHashesAndKeys() {
+        MerkleDigest digest = new MerkleDigest(8);
+        digest.replace("x", null, version("1", 1));
+        digest.clear();
+        assertEquals(0, digest.keysIn(digest.leafOf("x")).size());
+        assertEquals(new MerkleDigest(8).root(), digest.root());
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.streams.ReadStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class MetricsTest {
+
+    /**
+     * Stream whose events the test fires by hand
+     */
+    static class ManualStream implements ReadStream<String> {
+        Handler<Throwable> exceptionHandler;
+        Handler<String> handler;
+        Handler<Void> endHandler;
+
+        @Override
+        public ReadStream<String> exceptionHandler(Handler<Throwable> handler) {
+            exceptionHandler = handler;
+            return this;
+        }
+
+        @Override
+        public ReadStream<String> handler(Handler<String> handler) {
+            this.handler = handler;
+            return this;
+        }
+
+        @Override
+        public ReadStream<String> pause() {
+            return this;
+        }
+
+        @Override
+        public ReadStream<String> resume() {
+            return this;
+        }
+
+        @Override
+        public ReadStream<String> fetch(long amount) {
+            return this;
+        }
+
+        @Override
+        public ReadStream<String> endHandler(Handler<Void> handler) {
+            endHandler = handler;
+            return this;
+        }
+    }
+
+    private static String count(String operation) {
+        String prefix = "crud_mongo_operation_duration_seconds_count{operation=\"" + operation + "\"} ";
+        return Metrics.getInstance().prometheus().lines()
+                .filter(line -> line.startsWith(prefix))
+                .map(line -> line.substring(prefix.length()))
+                .findFirst().orElse("0");
+    }
+
+    private static String errors(String operation) {
+        return Metrics.getInstance().stats().getJsonObject("mongo").getJsonObject(operation)
+                .getValue("errors").toString();
+    }
+
+    @Test
+    void operationsAreTimedWhenTheyComplete() {
+        Metrics metrics = Metrics.getInstance();
+        metrics.mongo("testFind", () -> Future.succeededFuture(List.of()));
+        metrics.mongo("testFind", () -> Future.failedFuture("down"));
+        assertThrows(IllegalStateException.class, () -> metrics.mongo("testFind", () -> {
+            throw new IllegalStateException("closed");
+        }));
+        assertEquals("3", count("testFind"));
+        assertEquals("2", errors("testFind"));
+    }
+
+    @Test
+    void streamsAreTimedUntilTheyEndFailOrAreCancelled() {
+        Metrics metrics = Metrics.getInstance();
+        List<String> events = new ArrayList<>();
+        ManualStream ended = new ManualStream();
+        metrics.mongoStream("testStream", ended)
+                .endHandler(v -> events.add("end"))
+                .handler(events::add);
+        assertEquals("0", count("testStream"));
+        ended.handler.handle("doc");
+        ended.endHandler.handle(null);
+        assertEquals(List.of("doc", "end"), events);
+        assertEquals("1", count("testStream"));
+
+        ManualStream failed = new ManualStream();
+        metrics.mongoStream("testStream", failed).exceptionHandler(err -> events.add(err.getMessage()));
+        failed.exceptionHandler.handle(new RuntimeException("cursor lost"));
+        // Events after the first end don't count twice
+        failed.endHandler.handle(null);
+        assertTrue(events.contains("cursor lost"));
+        assertEquals("2", count("testStream"));
+        assertEquals("1", errors("testStream"));
+
+        ReadStream<String> cancelled = metrics.mongoStream("testStream", new ManualStream());
+        cancelled.handler(events::add);
+        cancelled.handler(null);
+        assertEquals("3", count("testStream"));
+    }
+}
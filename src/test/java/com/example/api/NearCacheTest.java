@@ -0,0 +1,59 @@
+package com.example.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class NearCacheTest {
+
+    @Test
+    void putIsDroppedWhenAnInvalidationArrivedInFlight() {
+        NearCache cache = new NearCache(10, 60_000);
+        long stamp = cache.stamp();
+        cache.invalidate("a");
+        cache.put("a", Buffer.buffer("stale"), stamp);
+        assertNull(cache.get("a"));
+        cache.put("a", Buffer.buffer("fresh"), cache.stamp());
+        assertEquals("fresh", cache.get("a").toString());
+        cache.invalidate("a");
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void sizeStaysBoundedAcrossThreads() throws Exception {
+        NearCache cache = new NearCache(100, 60_000);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int thread = t;
+                writers.add(pool.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        String id = thread + "-" + i;
+                        cache.put(id, Buffer.buffer(id), cache.stamp());
+                        cache.get(id);
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        JsonObject stats = cache.stats();
+        // Every id is either still cached or was evicted
+        assertTrue(stats.getInteger("size") <= 100);
+        assertEquals(40_000, stats.getInteger("size") + stats.getLong("evictions"));
+        assertEquals(40_000, stats.getLong("hits") + stats.getLong("misses"));
+    }
+}
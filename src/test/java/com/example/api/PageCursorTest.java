@@ -0,0 +1,102 @@
+package com.example.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PageCursorTest {
+
+    private static JsonObject doc(String id, String name) {
+        return new JsonObject().put("_id", id).put("name", name);
+    }
+
+    @Test
+    void encodeDecodeRoundTrip() {
+        PageCursor.Sort sort = PageCursor.Sort.parse("-name");
+        PageCursor cursor = PageCursor.after(doc("abc", "Widget"), sort);
+        String token = cursor.encode();
+        assertTrue(token.matches("[A-Za-z0-9_-]+"), "token is URL-safe without padding");
+
+        PageCursor decoded = PageCursor.decode(token);
+        assertTrue(decoded.sort.matches(sort));
+        assertEquals("Widget", decoded.sortValue);
+        assertEquals("abc", decoded.lastId);
+    }
+
+    @Test
+    void decodeRejectsGarbageAndUnknownFields() {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(
+                Base64.getUrlEncoder().encodeToString("not json".getBytes())));
+        String badField = Base64.getUrlEncoder().encodeToString(new JsonObject()
+                .put("f", "price").put("d", 1).put("v", 1).put("i", "x").toBuffer().getBytes());
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(badField));
+        String noId = Base64.getUrlEncoder().encodeToString(new JsonObject()
+                .put("f", "name").put("d", 1).put("v", "a").toBuffer().getBytes());
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(noId));
+    }
+
+    @Test
+    void seekById() {
+        PageCursor cursor = PageCursor.after(doc("abc", "Widget"), PageCursor.Sort.DEFAULT);
+        assertEquals(new JsonObject().put("_id", new JsonObject().put("$gt", "abc")), cursor.seek(null));
+    }
+
+    @Test
+    void seekBySortFieldBreaksTiesById() {
+        PageCursor cursor = PageCursor.after(doc("abc", "Widget"), PageCursor.Sort.parse("-name"));
+        JsonObject range = new JsonObject().put("$or", new JsonArray()
+                .add(new JsonObject().put("name", new JsonObject().put("$lt", "Widget")))
+                .add(new JsonObject().put("name", "Widget").put("_id", new JsonObject().put("$lt", "abc"))));
+        assertEquals(range, cursor.seek(new JsonObject()));
+
+        JsonObject filter = new JsonObject().put("category", "books");
+        assertEquals(new JsonObject().put("$and", new JsonArray().add(filter).add(range)), cursor.seek(filter));
+    }
+
+    @Test
+    void nextTokenDropsTheExtraDocument() {
+        List<JsonObject> docs = new ArrayList<>(List.of(doc("a", "x"), doc("b", "y"), doc("c", "z")));
+        String token = PageCursor.nextToken(docs, 2, PageCursor.Sort.DEFAULT);
+        assertEquals(2, docs.size());
+        assertEquals("b", PageCursor.decode(token).lastId);
+
+        List<JsonObject> lastPage = new ArrayList<>(List.of(doc("a", "x"), doc("b", "y")));
+        assertNull(PageCursor.nextToken(lastPage, 2, PageCursor.Sort.DEFAULT));
+        assertEquals(2, lastPage.size());
+    }
+
+    @Test
+    void nextTokenRejectsEmptyPages() {
+        List<JsonObject> docs = new ArrayList<>(List.of(doc("a", "x")));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.nextToken(docs, 0, PageCursor.Sort.DEFAULT));
+    }
+
+    @Test
+    void limitsAreClamped() {
+        assertEquals(RouterUtility.DEFAULT_LIMIT, RouterUtility.clampLimit(0));
+        assertEquals(RouterUtility.DEFAULT_LIMIT, RouterUtility.clampLimit(-5));
+        assertEquals(25, RouterUtility.clampLimit(25));
+        assertEquals(RouterUtility.MAX_LIMIT, RouterUtility.clampLimit(1_000_000));
+    }
+
+    @Test
+    void sortParsing() {
+        assertTrue(PageCursor.Sort.parse(null).matches(PageCursor.Sort.DEFAULT));
+        assertTrue(PageCursor.Sort.parse(" ").matches(PageCursor.Sort.DEFAULT));
+        PageCursor.Sort sort = PageCursor.Sort.parse("-category");
+        assertEquals("category", sort.field);
+        assertEquals(-1, sort.direction);
+        assertEquals(new JsonObject().put("category", -1).put("_id", -1), sort.toJson());
+        assertEquals(new JsonObject().put("_id", 1), PageCursor.Sort.DEFAULT.toJson());
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.Sort.parse("price"));
+    }
+}
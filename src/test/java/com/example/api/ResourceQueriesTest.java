@@ -0,0 +1,87 @@
+package com.example.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.FindOptions;
+import org.junit.jupiter.api.Test;
+
+class ResourceQueriesTest {
+
+    @Test
+    void missingFilterMatchesEverything() {
+        for (String filter : new String[] {null, "", "   "}) {
+            ResourceQueries.Plan plan = ResourceQueries.plan(filter);
+            assertEquals(ResourceQueries.Kind.ALL, plan.kind);
+            assertEquals(new JsonObject(), plan.query);
+            assertNull(plan.index());
+            assertNull(plan.countOptions());
+            assertNull(plan.apply(new FindOptions()).getCollation());
+        }
+    }
+
+    @Test
+    void exactMatchIsCollated() {
+        ResourceQueries.Plan plan = ResourceQueries.plan(" name : Widget ");
+        assertEquals(ResourceQueries.Kind.EXACT, plan.kind);
+        assertEquals(new JsonObject().put("name", "Widget"), plan.query);
+        assertEquals(ResourceQueries.NAME_INDEX, plan.index());
+        assertEquals("en", plan.apply(new FindOptions()).getCollation().getLocale());
+        assertNotNull(plan.countOptions().getCollation());
+        assertEquals(ResourceQueries.CATEGORY_INDEX, ResourceQueries.plan("category:tools").index());
+    }
+
+    @Test
+    void trailingStarIsAnAnchoredRange() {
+        ResourceQueries.Plan plan = ResourceQueries.plan("name:Wid*");
+        assertEquals(ResourceQueries.Kind.PREFIX, plan.kind);
+        JsonObject range = plan.query.getJsonObject("name");
+        assertEquals("Wid", range.getString("$gte"));
+        assertEquals("Wid\uffff", range.getString("$lt"));
+        assertEquals(ResourceQueries.NAME_INDEX, plan.index());
+        assertNotNull(plan.countOptions());
+    }
+
+    @Test
+    void textSearchUsesTheTextIndexWithoutCollation() {
+        ResourceQueries.Plan plan = ResourceQueries.plan("text:red widget");
+        assertEquals(ResourceQueries.Kind.TEXT, plan.kind);
+        assertEquals("red widget", plan.query.getJsonObject("$text").getString("$search"));
+        assertEquals(ResourceQueries.TEXT_INDEX, plan.index());
+        assertNull(plan.countOptions());
+        assertNull(plan.toJson().getValue("collation"));
+    }
+
+    @Test
+    void valuesAreNeverRegexes() {
+        // Regex metacharacters are matched literally as part of the value
+        ResourceQueries.Plan plan = ResourceQueries.plan("name:.*(a+)+$");
+        assertEquals(ResourceQueries.Kind.EXACT, plan.kind);
+        assertEquals(".*(a+)+$", plan.query.getString("name"));
+    }
+
+    @Test
+    void rejectsMalformedFilters() {
+        for (String filter : new String[] {"Widget", "name:", "name:   ", "description:x", "_id:1",
+                "name:*", "name:W*d*", "name:" + "x".repeat(257)}) {
+            assertThrows(IllegalArgumentException.class, () -> ResourceQueries.plan(filter), filter);
+        }
+        ResourceQueries.plan("name:" + "x".repeat(256));
+    }
+
+    @Test
+    void explainCommandCarriesTheCollation() {
+        JsonObject sort = new JsonObject().put("name", 1);
+        JsonObject find = ResourceQueries.plan("name:Wid*").findCommand(sort, 21);
+        assertEquals(ResourceQueries.COLLECTION, find.getString("find"));
+        assertEquals(21, find.getInteger("limit"));
+        assertEquals(sort, find.getJsonObject("sort"));
+        assertEquals("en", find.getJsonObject("collation").getString("locale"));
+        assertFalse(ResourceQueries.plan("text:x").findCommand(sort, 1).containsKey("collation"));
+        assertEquals("prefix", ResourceQueries.plan("name:Wid*").toJson().getString("kind"));
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.api;
+
+import io.vertx.core.Vertx;
+
+/**
+ * Vertx instances for tests. Context locals can only be registered before the
+ * first Vertx instance in the JVM is created, so every test creates its
+ * instances here, the way MainApp calls {@link RequestTiming#init()} first.
+ */
+final class TestVertx {
+
+    private TestVertx() {
+    }
+
+    static Vertx create() {
+        RequestTiming.init();
+        return Vertx.vertx();
+    }
+}
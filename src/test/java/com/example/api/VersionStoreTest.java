@@ -0,0 +1,96 @@
+package com.example.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs against the JVM's store in heap mode, where writes complete inline;
+ * each test uses its own keys
+ */
+class VersionStoreTest {
+
+    private final VersionStore store = VersionStore.getInstance();
+    private final String key = "test-" + UUID.randomUUID();
+
+    private static long at(long offsetMillis) {
+        return HybridLogicalClock.fromMillis(System.currentTimeMillis() + offsetMillis);
+    }
+
+    private int merge(String key, String value, long hlc) {
+        return store.merge(new JsonArray().add(new JsonObject().put("k", key).put("v", value).put("t", hlc)))
+                .result();
+    }
+
+    @Test
+    void newerRemoteVersionWins() {
+        long local = store.append(key, "local").result().hlc;
+        assertEquals(1, merge(key, "remote", local + 1));
+        assertEquals("remote", store.latest(key).value);
+        assertEquals(local + 1, store.latest(key).hlc);
+    }
+
+    @Test
+    void olderRemoteVersionIsIgnored() {
+        long local = store.append(key, "local").result().hlc;
+        assertEquals(0, merge(key, "remote", local - 1));
+        assertEquals("local", store.latest(key).value);
+    }
+
+    @Test
+    void equalTimestampsAreBrokenByValue() {
+        long hlc = at(0);
+        assertEquals(1, merge(key, "b", hlc));
+        // Smaller or equal values lose, so every node settles on the same one
+        assertEquals(0, merge(key, "a", hlc));
+        assertEquals(0, merge(key, "b", hlc));
+        assertEquals("b", store.latest(key).value);
+        assertEquals(1, merge(key, "c", hlc));
+        assertEquals("c", store.latest(key).value);
+    }
+
+    @Test
+    void nullValuesCompareAsTheStringNull() {
+        long hlc = at(0);
+        assertEquals(1, merge(key, null, hlc));
+        assertNull(store.latest(key).value);
+        // "null" vs "z": compared as strings
+        assertEquals(1, merge(key, "z", hlc));
+        assertEquals("z", store.latest(key).value);
+    }
+
+    @Test
+    void localWritesOrderAfterMergedVersions() {
+        long remote = at(30_000);
+        merge(key, "remote", remote);
+        assertTrue(store.append(key, "local").result().hlc > remote);
+        assertEquals("local", store.latest(key).value);
+    }
+
+    @Test
+    void versionsTooFarAheadAreDropped() {
+        long before = (long) store.stats().getLong("skewRejected");
+        assertEquals(0, merge(key, "future", at(HybridLogicalClock.DEFAULT_MAX_DRIFT_MILLIS + 60_000)));
+        assertNull(store.latest(key));
+        assertEquals(before + 1, store.stats().getLong("skewRejected"));
+    }
+
+    @Test
+    void digestIndexesKeysByLeaf() {
+        store.append(key, "v");
+        MerkleDigest digest = store.digest();
+        int leaf = digest.leafOf(key);
+        assertTrue(digest.keysIn(leaf).contains(key));
+        List<String> visited = new ArrayList<>();
+        store.forEachLatestIn(List.of(leaf), (k, latest) -> visited.add(k));
+        assertTrue(visited.contains(key));
+        assertTrue(visited.stream().allMatch(k -> digest.leafOf(k) == leaf));
+    }
+}